@@ -5,9 +5,11 @@ bash -c 'while [[ "$(curl -s -o /dev/null -w ''%{http_code}'' localhost:8091/poo
 couchbase-cli cluster-init -c localhost \
 --cluster-username Administrator \
 --cluster-password password \
---services data,query,index \
+--services data,query,index,analytics,fts \
 --cluster-ramsize 512 \
---cluster-index-ramsize 256
+--cluster-index-ramsize 256 \
+--cluster-analytics-ramsize 1024 \
+--cluster-fts-ramsize 256
 
 couchbase-cli bucket-create -c localhost \
 -u Administrator \
@@ -30,4 +32,16 @@ couchbase-cli collection-manage -c localhost \
 
 bash -c 'while [[ "$(curl -s -o /dev/null -w ''%{http_code}'' localhost:8093/query)" != "400" ]]; do sleep 1; done'
 
-cbq -e localhost:8093 -c Administrator:password -f "$1"
\ No newline at end of file
+cbq -e localhost:8093 -c Administrator:password -f "$1"
+
+curl -s -u Administrator:password -X PUT localhost:8094/api/index/kestra-fts \
+-H 'Content-Type: application/json' \
+-d '{"type": "fulltext-index", "name": "kestra-fts", "sourceType": "gocbcore", "sourceName": "kestra", "params": {"mapping": {"default_mapping": {"enabled": true, "dynamic": true}, "store_dynamic": true, "docvalues_dynamic": true}}}'
+
+bash -c 'while [[ "$(curl -s -u Administrator:password localhost:8094/api/index/kestra-fts/count)" != *"\"count\":"[1-9]* ]]; do sleep 1; done'
+
+curl -s -u Administrator:password -X PUT localhost:8094/api/bucket/kestra/scope/some-scope/index/kestra-vectors \
+-H 'Content-Type: application/json' \
+-d '{"type": "fulltext-index", "name": "kestra-vectors", "sourceType": "gocbcore", "sourceName": "kestra", "params": {"doc_config": {"mode": "scope.collection.type_field", "type_field": "type"}, "mapping": {"default_mapping": {"enabled": false}, "types": {"some-scope.some-collection": {"enabled": true, "dynamic": true, "properties": {"embedding": {"enabled": true, "fields": [{"name": "embedding", "type": "vector", "dims": 3, "similarity": "l2_norm", "index": true}]}}}}, "store_dynamic": true}}}'
+
+bash -c 'while [[ "$(curl -s -u Administrator:password localhost:8094/api/bucket/kestra/scope/some-scope/index/kestra-vectors/count)" != *"\"count\":"[3-9]* ]]; do sleep 1; done'
@@ -0,0 +1,144 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.couchbase.client.java.codec.DefaultJsonSerializer;
+import com.couchbase.client.java.codec.JsonSerializer;
+
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Benchmarks the row hot path of {@link Query}: each row returned by the query service is decoded into a map with the
+ * SDK serializer, as {@code rowsAs(TypeRef)} does, then written as ion with {@link FileSerde#write}.
+ * <p>
+ * The query service is stood in by pre-encoded JSON rows so that only the client-side conversion is measured. Scores
+ * are rows per second; run with {@code ./gradlew jmh} to also get the allocation rate from the gc profiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(RowDecodingBenchmark.ROWS)
+public class RowDecodingBenchmark {
+    static final int ROWS = 1_000;
+
+    @Param({"SMALL", "WIDE", "NESTED"})
+    private Shape shape;
+
+    private final JsonSerializer serializer = DefaultJsonSerializer.create();
+
+    private List<byte[]> encodedRows;
+    private List<Map<String, Object>> decodedRows;
+    private OutputStream output;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+
+        encodedRows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            encodedRows.add(JacksonMapper.ofJson().writeValueAsBytes(shape.row(i, random)));
+        }
+
+        decodedRows = encodedRows.stream()
+            .map(row -> serializer.deserialize(Query.MAP_TYPE_REF, row))
+            .toList();
+
+        output = new BufferedOutputStream(OutputStream.nullOutputStream(), FileSerde.BUFFER_SIZE);
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        for (byte[] row : encodedRows) {
+            blackhole.consume(serializer.deserialize(Query.MAP_TYPE_REF, row));
+        }
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        for (Map<String, Object> row : decodedRows) {
+            FileSerde.write(output, row);
+        }
+        output.flush();
+    }
+
+    @Benchmark
+    public void decodeAndWrite() throws IOException {
+        for (byte[] row : encodedRows) {
+            FileSerde.write(output, serializer.deserialize(Query.MAP_TYPE_REF, row));
+        }
+        output.flush();
+    }
+
+    public enum Shape {
+        /**
+         * A handful of scalar fields, like a typical lookup projection.
+         */
+        SMALL {
+            @Override
+            Map<String, Object> row(int index, Random random) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", "doc::" + index);
+                row.put("c_int", random.nextInt());
+                row.put("c_string", "Kestra Doc " + index);
+                row.put("c_boolean", random.nextBoolean());
+                return row;
+            }
+        },
+        /**
+         * Two hundred flat fields of mixed types, like a `SELECT *` on a denormalized document.
+         */
+        WIDE {
+            @Override
+            Map<String, Object> row(int index, Random random) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", "doc::" + index);
+                for (int i = 0; i < 200; i++) {
+                    row.put("field_" + i, switch (i % 4) {
+                        case 0 -> random.nextLong();
+                        case 1 -> random.nextDouble();
+                        case 2 -> "value " + random.nextInt(1_000);
+                        default -> random.nextBoolean();
+                    });
+                }
+                return row;
+            }
+        },
+        /**
+         * Objects and arrays nested six levels deep.
+         */
+        NESTED {
+            @Override
+            Map<String, Object> row(int index, Random random) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", "doc::" + index);
+                row.put("content", nested(6, random));
+                return row;
+            }
+
+            private Map<String, Object> nested(int depth, Random random) {
+                Map<String, Object> node = new LinkedHashMap<>();
+                node.put("name", "level " + depth);
+                node.put("value", random.nextInt());
+                node.put("tags", List.of("a" + random.nextInt(10), "b" + random.nextInt(10), "c" + random.nextInt(10)));
+                if (depth > 0) {
+                    node.put("children", List.of(nested(depth - 1, random), Map.of("leaf", random.nextDouble())));
+                }
+                return node;
+            }
+        };
+
+        abstract Map<String, Object> row(int index, Random random);
+    }
+}
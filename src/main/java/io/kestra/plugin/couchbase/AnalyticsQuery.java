@@ -0,0 +1,255 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.analytics.AnalyticsMetaData;
+import com.couchbase.client.java.analytics.AnalyticsOptions;
+import com.couchbase.client.java.analytics.AnalyticsResult;
+import com.couchbase.client.java.analytics.AnalyticsScanConsistency;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Run a Couchbase Analytics (SQL++) query",
+    description = "Executes the rendered statement on the Analytics service, which runs heavy aggregations and joins on its own nodes and shadow datasets, away from the operational query and data services. FetchType semantics are the same as `Query`: STORE streams all rows to Kestra internal storage, FETCH returns them inline and FETCH_ONE only the first row."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Store a daily revenue report computed by the Analytics service",
+            full = true,
+            code = """
+                id: couchbase_analytics_query
+                namespace: company.team
+
+                tasks:
+                  - id: report
+                    type: io.kestra.plugin.couchbase.AnalyticsQuery
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: |
+                      SELECT DATE_TRUNC_STR(o.created_at, 'day') AS day, SUM(o.total) AS revenue
+                      FROM orders o
+                      WHERE o.created_at >= $since
+                      GROUP BY DATE_TRUNC_STR(o.created_at, 'day')
+                    parameters:
+                      since: "{{ execution.startDate | dateAdd(-7, 'DAYS') }}"
+                    queryTimeout: PT10M
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of rows returned."),
+        @Metric(name = "query.duration", type = Timer.TYPE, description = "Time spent running the query and reading its rows."),
+        @Metric(name = "server.elapsed.duration", type = Timer.TYPE, description = "Total request time reported by the Analytics service."),
+        @Metric(name = "server.execution.duration", type = Timer.TYPE, description = "Execution time reported by the Analytics service."),
+        @Metric(name = "server.processed.objects", type = Counter.TYPE, description = "Objects processed by the Analytics service.")
+    }
+)
+public class AnalyticsQuery extends CouchbaseConnection implements RunnableTask<Query.Output> {
+    @Schema(
+        title = "Renderable SQL++ statement to run",
+        description = "Rendered with flow variables before being sent to the Analytics service."
+    )
+    @NotNull
+    @NotBlank
+    @PluginProperty(dynamic = true, group = "main")
+    protected String query;
+
+    @Schema(
+        title = "Query parameters for placeholders",
+        description = "A map for named parameters or a list for positional ones.",
+        anyOf = {
+            Map.class,
+            String[].class
+        }
+    )
+    @PluginProperty(group = "advanced", additionalProperties = String.class, dynamic = true)
+    protected Object parameters;
+
+    @Schema(
+        title = "How to return or store query results",
+        description = "Defaults to STORE, which streams all rows to Kestra internal storage. FETCH returns all rows inline, FETCH_ONE returns the first row, and NONE only counts them."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<FetchType> fetchType = Property.ofValue(FetchType.STORE);
+
+    @Schema(
+        title = "Format of the stored file",
+        description = "Only applies when fetchType is STORE; see `Query` for the available formats."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Query.OutputFormat> outputFormat = Property.ofValue(Query.OutputFormat.ION);
+
+    @Schema(
+        title = "Compression of the stored file",
+        description = "Only applies when fetchType is STORE."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Query.Compression> compression = Property.ofValue(Query.Compression.NONE);
+
+    @Schema(
+        title = "Run with high priority",
+        description = "Prioritized requests are scheduled before the others on a busy Analytics service."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Boolean> priority = Property.ofValue(false);
+
+    @Schema(
+        title = "Query timeout",
+        description = "Defaults to the cluster environment analytics timeout."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<Duration> queryTimeout;
+
+    @Schema(
+        title = "Scan consistency",
+        description = "Defaults to NOT_BOUNDED. REQUEST_PLUS waits for the shadow datasets to ingest every mutation made before the request."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<AnalyticsScanConsistency> scanConsistency;
+
+    @Schema(
+        title = "Reject statements that modify data"
+    )
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> readonly;
+
+    @Override
+    public Query.Output run(RunContext runContext) throws Exception {
+        Cluster cluster = connect(runContext);
+
+        try {
+            String renderedQuery = runContext.render(query);
+            AnalyticsOptions analyticsOptions = analyticsOptions(runContext);
+            FetchType renderedFetchType = runContext.render(fetchType).as(FetchType.class).orElseThrow();
+
+            if (renderedFetchType == FetchType.STORE) {
+                return store(runContext, cluster, renderedQuery, analyticsOptions);
+            }
+
+            long start = System.nanoTime();
+            AnalyticsResult result = cluster.analyticsQuery(renderedQuery, analyticsOptions);
+            List<Map<String, Object>> rows = result.rowsAs(Query.MAP_TYPE_REF);
+            runContext.metric(Timer.of("query.duration", Duration.ofNanos(System.nanoTime() - start)));
+            runContext.metric(Counter.of("records", rows.size()));
+            serverMetrics(runContext, result.metaData());
+
+            Query.Output.OutputBuilder outputBuilder = Query.Output.builder().size((long) rows.size());
+
+            return (switch (renderedFetchType) {
+                case FETCH -> outputBuilder
+                    .rows(rows);
+                case FETCH_ONE -> outputBuilder
+                    .row(rows.stream().findFirst().orElse(null));
+                default -> outputBuilder;
+            }).build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnalyticsOptions analyticsOptions(RunContext runContext) throws Exception {
+        AnalyticsOptions analyticsOptions = AnalyticsOptions.analyticsOptions()
+            .priority(runContext.render(priority).as(Boolean.class).orElseThrow());
+
+        if (parameters instanceof Map) {
+            analyticsOptions.parameters(JsonObject.from((Map<String, ?>) parameters));
+        } else if (parameters instanceof List) {
+            analyticsOptions.parameters(JsonArray.from((List<?>) parameters));
+        }
+
+        runContext.render(queryTimeout).as(Duration.class).ifPresent(analyticsOptions::timeout);
+        runContext.render(scanConsistency).as(AnalyticsScanConsistency.class).ifPresent(analyticsOptions::scanConsistency);
+        runContext.render(readonly).as(Boolean.class).ifPresent(analyticsOptions::readonly);
+
+        return analyticsOptions;
+    }
+
+    /**
+     * Streams rows from the reactive analytics API to the output file, with the same bounded demand as {@link Query} STORE.
+     */
+    private Query.Output store(RunContext runContext, Cluster cluster, String renderedQuery, AnalyticsOptions analyticsOptions) throws Exception {
+        Query.OutputFormat renderedOutputFormat = runContext.render(outputFormat).as(Query.OutputFormat.class).orElseThrow();
+        Query.Compression renderedCompression = runContext.render(compression).as(Query.Compression.class).orElseThrow();
+
+        File tempFile = runContext.workingDir().createTempFile(RowWriter.extension(renderedOutputFormat, renderedCompression)).toFile();
+        AtomicReference<AnalyticsMetaData> metaData = new AtomicReference<>();
+
+        long start = System.nanoTime();
+        Long size;
+        try (RowWriter writer = RowWriter.of(renderedOutputFormat, renderedCompression, new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE))) {
+            size = cluster.reactive()
+                .analyticsQuery(renderedQuery, analyticsOptions)
+                .flatMapMany(result -> result.rowsAs(Query.MAP_TYPE_REF)
+                    .concatWith(result.metaData().doOnNext(metaData::set).then(Mono.empty()))
+                )
+                .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH)
+                .doOnNext(throwConsumer(writer::write))
+                .count()
+                .block();
+        }
+
+        runContext.metric(Timer.of("query.duration", Duration.ofNanos(System.nanoTime() - start)));
+        runContext.metric(Counter.of("records", size));
+        if (metaData.get() != null) {
+            serverMetrics(runContext, metaData.get());
+        }
+
+        URI uri = runContext.storage().putFile(tempFile);
+
+        return Query.Output.builder()
+            .size(size)
+            .uri(uri)
+            .build();
+    }
+
+    private static void serverMetrics(RunContext runContext, AnalyticsMetaData metaData) {
+        runContext.metric(Timer.of("server.elapsed.duration", metaData.metrics().elapsedTime()));
+        runContext.metric(Timer.of("server.execution.duration", metaData.metrics().executionTime()));
+        runContext.metric(Counter.of("server.processed.objects", metaData.metrics().processedObjects()));
+    }
+}
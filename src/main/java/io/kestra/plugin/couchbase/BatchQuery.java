@@ -0,0 +1,338 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Run many N1QL statements over one connection",
+    description = "Runs either a list of statements, or one statement once per parameter set, concurrently through the reactive query API on a single shared cluster connection. Results are collected per statement, in input order: stored in one Kestra internal storage file per statement with STORE, or returned inline with FETCH and FETCH_ONE. The task fails on the first failing statement."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Compute an aggregate per tenant, 16 statements at a time, reusing one prepared plan",
+            full = true,
+            code = """
+                id: couchbase_batch_query
+                namespace: company.team
+
+                tasks:
+                  - id: per_tenant
+                    type: io.kestra.plugin.couchbase.BatchQuery
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT COUNT(*) AS orders FROM `my_bucket` WHERE tenant = $tenant
+                    parameterSets:
+                      - tenant: acme
+                      - tenant: globex
+                      - tenant: initech
+                    adhoc: false
+                    concurrency: 16
+                    fetchType: FETCH_ONE
+                """
+        ),
+        @Example(
+            title = "Run independent statements and store each result set",
+            full = true,
+            code = """
+                id: couchbase_batch_statements
+                namespace: company.team
+
+                tasks:
+                  - id: exports
+                    type: io.kestra.plugin.couchbase.BatchQuery
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    queries:
+                      - SELECT * FROM `my_bucket`.`sales`.`orders`
+                      - SELECT * FROM `my_bucket`.`sales`.`customers`
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "statements", type = Counter.TYPE, description = "Number of statements run."),
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of rows returned by all statements."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent running all statements.")
+    }
+)
+public class BatchQuery extends CouchbaseConnection implements RunnableTask<BatchQuery.Output> {
+    @Schema(
+        title = "Statements to run",
+        description = "Each statement is rendered then run once; use `query` with `parameterSets` instead to run the same statement with different parameters."
+    )
+    @PluginProperty(group = "main")
+    protected Property<List<String>> queries;
+
+    @Schema(
+        title = "Statement run once per parameter set",
+        description = "Rendered once, then run with each entry of `parameterSets`."
+    )
+    @PluginProperty(dynamic = true, group = "main")
+    protected String query;
+
+    @Schema(
+        title = "Parameter sets of `query`",
+        description = "One entry per run of `query`: a map for named parameters or a list for positional ones."
+    )
+    @PluginProperty(group = "main")
+    protected List<Object> parameterSets;
+
+    @Schema(
+        title = "Maximum number of statements running at once"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(8);
+
+    @Schema(
+        title = "How to return or store the results of each statement",
+        description = "Defaults to STORE, which writes the rows of each statement to its own file. FETCH returns all rows inline, FETCH_ONE the first row, and NONE only counts them."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<FetchType> fetchType = Property.ofValue(FetchType.STORE);
+
+    @Schema(
+        title = "Run the statements as ad hoc",
+        description = "Defaults to true. Set it to false with `parameterSets` so the statement is prepared once and its plan reused by every run."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> adhoc = Property.ofValue(true);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        List<Statement> statements = statements(runContext);
+        int renderedConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+        FetchType renderedFetchType = runContext.render(fetchType).as(FetchType.class).orElseThrow();
+        boolean renderedAdhoc = runContext.render(adhoc).as(Boolean.class).orElseThrow();
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            long start = System.nanoTime();
+
+            List<Result> results = Flux.fromIterable(statements)
+                .flatMapSequential(statement -> execute(runContext, cluster, statement, renderedFetchType, renderedAdhoc), renderedConcurrency)
+                .collectList()
+                .block();
+
+            long records = results.stream().mapToLong(Result::getSize).sum();
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+
+            runContext.metric(Counter.of("statements", results.size()));
+            runContext.metric(Counter.of("records", records));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Ran {} statements returning {} rows in {}", results.size(), records, duration);
+
+            return Output.builder()
+                .results(results)
+                .size(records)
+                .build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    private List<Statement> statements(RunContext runContext) throws Exception {
+        List<String> renderedQueries = runContext.render(queries).asList(String.class);
+
+        if (renderedQueries.isEmpty() == (query == null)) {
+            throw new IllegalArgumentException("Exactly one of 'queries' or 'query' must be set");
+        }
+
+        List<Statement> statements = new ArrayList<>();
+        if (query == null) {
+            renderedQueries.forEach(renderedQuery -> statements.add(new Statement(statements.size(), renderedQuery, null)));
+        } else {
+            if (parameterSets == null || parameterSets.isEmpty()) {
+                throw new IllegalArgumentException("'parameterSets' is required with 'query'");
+            }
+
+            String renderedQuery = runContext.render(query);
+            parameterSets.forEach(parameters -> statements.add(new Statement(statements.size(), renderedQuery, parameters)));
+        }
+
+        return statements;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Result> execute(RunContext runContext, Cluster cluster, Statement statement, FetchType fetchType, boolean adhoc) {
+        QueryOptions queryOptions = QueryOptions.queryOptions().adhoc(adhoc);
+        if (statement.parameters() instanceof Map) {
+            queryOptions.parameters(JsonObject.from((Map<String, ?>) statement.parameters()));
+        } else if (statement.parameters() instanceof List) {
+            queryOptions.parameters(JsonArray.from((List<?>) statement.parameters()));
+        }
+
+        Flux<Map<String, Object>> rows = cluster.reactive()
+            .query(statement.query(), queryOptions)
+            .flatMapMany(result -> result.rowsAs(Query.MAP_TYPE_REF));
+
+        Result.ResultBuilder result = Result.builder()
+            .index(statement.index())
+            .parameters(statement.parameters());
+
+        return switch (fetchType) {
+            case STORE -> store(runContext, rows)
+                .map(stored -> result.uri(stored.uri()).size(stored.size()).build());
+            case FETCH -> rows.collectList()
+                .map(list -> result.rows(list).size((long) list.size()).build());
+            case FETCH_ONE -> {
+                // only the first row is kept, the others are counted
+                AtomicReference<Map<String, Object>> first = new AtomicReference<>();
+                yield rows.doOnNext(row -> first.compareAndSet(null, row))
+                    .count()
+                    .map(count -> result.row(first.get()).size(count).build());
+            }
+            case NONE -> rows.count()
+                .map(count -> result.size(count).build());
+        };
+    }
+
+    private Mono<Stored> store(RunContext runContext, Flux<Map<String, Object>> rows) {
+        return Mono.defer(() -> {
+            try {
+                File file = runContext.workingDir().createTempFile(".ion").toFile();
+                RowWriter writer = RowWriter.of(Query.OutputFormat.ION, Query.Compression.NONE, new BufferedOutputStream(new FileOutputStream(file), FileSerde.BUFFER_SIZE));
+
+                AtomicBoolean closed = new AtomicBoolean(false);
+
+                return rows
+                    .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH)
+                    .doOnNext(throwConsumer(writer::write))
+                    .count()
+                    // the file is only complete once the writer is flushed and closed, before uploading it
+                    .flatMap(count -> Mono.fromCallable(() -> {
+                        closed.set(true);
+                        writer.close();
+                        return new Stored(runContext.storage().putFile(file), count);
+                    }))
+                    // a failed statement, or one cancelled because another failed, still releases its file
+                    .doFinally(signal -> {
+                        if (closed.compareAndSet(false, true)) {
+                            discard(runContext, writer, file);
+                        }
+                    });
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+        });
+    }
+
+    private static void discard(RunContext runContext, RowWriter writer, File file) {
+        try {
+            writer.close();
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            runContext.logger().warn("Unable to discard result file '{}'", file, e);
+        }
+    }
+
+    private record Statement(int index, String query, Object parameters) {
+    }
+
+    private record Stored(URI uri, long size) {
+    }
+
+    @Builder
+    @Getter
+    public static class Result {
+        @Schema(
+            title = "Position of the statement or parameter set"
+        )
+        private Integer index;
+
+        @Schema(
+            title = "Parameters the statement ran with"
+        )
+        private Object parameters;
+
+        @Schema(
+            title = "All rows returned",
+            description = "Present when fetchType is FETCH."
+        )
+        private List<Map<String, Object>> rows;
+
+        @Schema(
+            title = "First row returned",
+            description = "Present when fetchType is FETCH_ONE."
+        )
+        private Map<String, Object> row;
+
+        @Schema(
+            title = "Stored result URI",
+            description = "Present when fetchType is STORE."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of rows returned"
+        )
+        private Long size;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Result of each statement",
+            description = "In the order of `queries` or `parameterSets`."
+        )
+        private List<Result> results;
+
+        @Schema(
+            title = "Number of rows returned by all statements"
+        )
+        private Long size;
+    }
+}
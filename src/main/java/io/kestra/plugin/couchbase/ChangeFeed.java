@@ -0,0 +1,38 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.Map;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Stream of document changes of a bucket, partitioned by vBucket, that can be resumed from per-partition checkpoints.
+ */
+interface ChangeFeed extends AutoCloseable {
+    /**
+     * Streams changes, resuming each partition after its checkpoint; partitions without checkpoint start from {@code startFrom}.
+     */
+    Flux<Change> stream(Map<Integer, Checkpoint> checkpoints, StartFrom startFrom);
+
+    @Override
+    void close();
+
+    enum StartFrom {
+        NOW,
+        BEGINNING
+    }
+
+    enum ChangeType {
+        MUTATION,
+        DELETION,
+        EXPIRATION
+    }
+
+    record Change(int partition, Checkpoint checkpoint, ChangeType type, String id, long cas, String collection, byte[] content) {
+    }
+
+    /**
+     * Position of a partition in the stream, enough to resume right after the last processed change.
+     */
+    record Checkpoint(long vbuuid, long seqno, long snapshotStart, long snapshotEnd, long collectionsManifestUid) {
+    }
+}
@@ -0,0 +1,319 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+
+import com.couchbase.client.java.env.ClusterEnvironment;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Typed subset of the Couchbase {@link ClusterEnvironment} settings. Every unset value keeps the SDK default.
+ */
+@Value
+@Builder
+@Jacksonized
+public class ClusterEnvironmentConfig {
+    @Schema(
+        title = "Network and connection pools"
+    )
+    @Valid
+    @PluginProperty
+    Io io;
+
+    @Schema(
+        title = "Default timeouts of each service"
+    )
+    @Valid
+    @PluginProperty
+    Timeout timeout;
+
+    @Schema(
+        title = "Document value compression"
+    )
+    @Valid
+    @PluginProperty
+    Compression compression;
+
+    @Schema(
+        title = "Logging of slow operations",
+        description = "Periodically logs a sample of the operations that took longer than their service threshold."
+    )
+    @Valid
+    @PluginProperty
+    ThresholdLogging thresholdLogging;
+
+    Rendered render(RunContext runContext) throws IllegalVariableEvaluationException {
+        return new Rendered(
+            io == null ? null : runContext.render(io.numKvConnections).as(Integer.class).orElse(null),
+            io == null ? null : runContext.render(io.maxHttpConnections).as(Integer.class).orElse(null),
+            io == null ? null : runContext.render(io.idleHttpConnectionTimeout).as(Duration.class).orElse(null),
+            io == null ? null : runContext.render(io.eventLoopThreadCount).as(Integer.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.connectTimeout).as(Duration.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.kvTimeout).as(Duration.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.kvDurableTimeout).as(Duration.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.queryTimeout).as(Duration.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.analyticsTimeout).as(Duration.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.searchTimeout).as(Duration.class).orElse(null),
+            timeout == null ? null : runContext.render(timeout.managementTimeout).as(Duration.class).orElse(null),
+            compression == null ? null : runContext.render(compression.enabled).as(Boolean.class).orElse(null),
+            compression == null ? null : runContext.render(compression.minSize).as(Integer.class).orElse(null),
+            compression == null ? null : runContext.render(compression.minRatio).as(Double.class).orElse(null),
+            thresholdLogging == null ? null : runContext.render(thresholdLogging.enabled).as(Boolean.class).orElse(null),
+            thresholdLogging == null ? null : runContext.render(thresholdLogging.emitInterval).as(Duration.class).orElse(null),
+            thresholdLogging == null ? null : runContext.render(thresholdLogging.kvThreshold).as(Duration.class).orElse(null),
+            thresholdLogging == null ? null : runContext.render(thresholdLogging.queryThreshold).as(Duration.class).orElse(null),
+            thresholdLogging == null ? null : runContext.render(thresholdLogging.sampleSize).as(Integer.class).orElse(null)
+        );
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Io {
+        @Schema(
+            title = "Key-value connections opened to each node",
+            description = "Defaults to 1; more connections spread the KV traffic of concurrent tasks."
+        )
+        @PluginProperty
+        Property<Integer> numKvConnections;
+
+        @Schema(
+            title = "Maximum HTTP connections per node and service",
+            description = "Bounds the connection pools of the query, search, analytics and management services."
+        )
+        @PluginProperty
+        Property<Integer> maxHttpConnections;
+
+        @Schema(
+            title = "Idle time after which a pooled HTTP connection is closed"
+        )
+        @PluginProperty
+        Property<Duration> idleHttpConnectionTimeout;
+
+        @Schema(
+            title = "Number of IO event loop threads",
+            description = "Defaults to a value derived from the available processors."
+        )
+        @PluginProperty
+        Property<Integer> eventLoopThreadCount;
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Timeout {
+        @Schema(
+            title = "Timeout to open the connection to the cluster"
+        )
+        @PluginProperty
+        Property<Duration> connectTimeout;
+
+        @Schema(
+            title = "Timeout of key-value operations"
+        )
+        @PluginProperty
+        Property<Duration> kvTimeout;
+
+        @Schema(
+            title = "Timeout of key-value operations with a durability level"
+        )
+        @PluginProperty
+        Property<Duration> kvDurableTimeout;
+
+        @Schema(
+            title = "Timeout of N1QL queries"
+        )
+        @PluginProperty
+        Property<Duration> queryTimeout;
+
+        @Schema(
+            title = "Timeout of analytics queries"
+        )
+        @PluginProperty
+        Property<Duration> analyticsTimeout;
+
+        @Schema(
+            title = "Timeout of search queries"
+        )
+        @PluginProperty
+        Property<Duration> searchTimeout;
+
+        @Schema(
+            title = "Timeout of management operations"
+        )
+        @PluginProperty
+        Property<Duration> managementTimeout;
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Compression {
+        @Schema(
+            title = "Compress document values with Snappy",
+            description = "Enabled by default by the SDK."
+        )
+        @PluginProperty
+        Property<Boolean> enabled;
+
+        @Schema(
+            title = "Minimum value size in bytes to compress"
+        )
+        @PluginProperty
+        Property<Integer> minSize;
+
+        @Schema(
+            title = "Minimum compression ratio to send the compressed value",
+            description = "Between 0 and 1; values that compress worse are sent as is."
+        )
+        @PluginProperty
+        Property<Double> minRatio;
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class ThresholdLogging {
+        @Schema(
+            title = "Log slow operations"
+        )
+        @PluginProperty
+        Property<Boolean> enabled;
+
+        @Schema(
+            title = "Interval between two reports"
+        )
+        @PluginProperty
+        Property<Duration> emitInterval;
+
+        @Schema(
+            title = "Duration above which a key-value operation is reported"
+        )
+        @PluginProperty
+        Property<Duration> kvThreshold;
+
+        @Schema(
+            title = "Duration above which a query is reported"
+        )
+        @PluginProperty
+        Property<Duration> queryThreshold;
+
+        @Schema(
+            title = "Number of operations reported per service and interval"
+        )
+        @PluginProperty
+        Property<Integer> sampleSize;
+    }
+
+    /**
+     * Rendered settings, comparable so that clusters with the same environment can be shared by the {@link ClusterPool}.
+     */
+    record Rendered(
+        Integer numKvConnections,
+        Integer maxHttpConnections,
+        Duration idleHttpConnectionTimeout,
+        Integer eventLoopThreadCount,
+        Duration connectTimeout,
+        Duration kvTimeout,
+        Duration kvDurableTimeout,
+        Duration queryTimeout,
+        Duration analyticsTimeout,
+        Duration searchTimeout,
+        Duration managementTimeout,
+        Boolean compressionEnabled,
+        Integer compressionMinSize,
+        Double compressionMinRatio,
+        Boolean thresholdLoggingEnabled,
+        Duration thresholdEmitInterval,
+        Duration kvThreshold,
+        Duration queryThreshold,
+        Integer thresholdSampleSize
+    ) {
+        static final Rendered DEFAULT = new Rendered(null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
+
+        ClusterEnvironment create() {
+            ClusterEnvironment.Builder builder = ClusterEnvironment.builder();
+
+            builder.ioConfig(io -> {
+                if (numKvConnections != null) {
+                    io.numKvConnections(numKvConnections);
+                }
+                if (maxHttpConnections != null) {
+                    io.maxHttpConnections(maxHttpConnections);
+                }
+                if (idleHttpConnectionTimeout != null) {
+                    io.idleHttpConnectionTimeout(idleHttpConnectionTimeout);
+                }
+            });
+
+            if (eventLoopThreadCount != null) {
+                builder.ioEnvironment(io -> io.eventLoopThreadCount(eventLoopThreadCount));
+            }
+
+            builder.timeoutConfig(timeout -> {
+                if (connectTimeout != null) {
+                    timeout.connectTimeout(connectTimeout);
+                }
+                if (kvTimeout != null) {
+                    timeout.kvTimeout(kvTimeout);
+                }
+                if (kvDurableTimeout != null) {
+                    timeout.kvDurableTimeout(kvDurableTimeout);
+                }
+                if (queryTimeout != null) {
+                    timeout.queryTimeout(queryTimeout);
+                }
+                if (analyticsTimeout != null) {
+                    timeout.analyticsTimeout(analyticsTimeout);
+                }
+                if (searchTimeout != null) {
+                    timeout.searchTimeout(searchTimeout);
+                }
+                if (managementTimeout != null) {
+                    timeout.managementTimeout(managementTimeout);
+                }
+            });
+
+            builder.compressionConfig(compression -> {
+                if (compressionEnabled != null) {
+                    compression.enable(compressionEnabled);
+                }
+                if (compressionMinSize != null) {
+                    compression.minSize(compressionMinSize);
+                }
+                if (compressionMinRatio != null) {
+                    compression.minRatio(compressionMinRatio);
+                }
+            });
+
+            builder.thresholdLoggingTracerConfig(tracer -> {
+                if (thresholdLoggingEnabled != null) {
+                    tracer.enabled(thresholdLoggingEnabled);
+                }
+                if (thresholdEmitInterval != null) {
+                    tracer.emitInterval(thresholdEmitInterval);
+                }
+                if (kvThreshold != null) {
+                    tracer.kvThreshold(kvThreshold);
+                }
+                if (queryThreshold != null) {
+                    tracer.queryThreshold(queryThreshold);
+                }
+                if (thresholdSampleSize != null) {
+                    tracer.sampleSize(thresholdSampleSize);
+                }
+            });
+
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.couchbase.client.core.diagnostics.ClusterState;
+import com.couchbase.client.java.Cluster;
+
+/**
+ * Process-wide cache of connected {@link Cluster} instances, shared by every task run and trigger evaluation of the plugin.
+ * <p>
+ * Clusters are keyed by their rendered connection settings and reference counted: {@link #acquire(Key, Supplier)} hands out
+ * a warm cluster and {@link #release(Cluster)} returns it. Unused clusters are disconnected once idle for longer than the idle
+ * timeout, the least recently used idle cluster is evicted when the pool grows beyond its max size, and an idle cluster whose
+ * endpoints are all offline is replaced on the next acquisition. Clusters are connected and health checked outside the pool
+ * lock, so a slow bootstrap only delays the callers asking for that same cluster.
+ */
+final class ClusterPool {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterPool.class);
+
+    private static final int MAX_SIZE = 16;
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+    private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofSeconds(30);
+
+    private static final ClusterPool INSTANCE = new ClusterPool(MAX_SIZE, IDLE_TIMEOUT, HEALTH_CHECK_INTERVAL);
+
+    private final int maxSize;
+    private final Duration idleTimeout;
+    private final Duration healthCheckInterval;
+
+    // access-ordered, so iteration starts with the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Cluster, Entry> leased = new IdentityHashMap<>();
+
+    ClusterPool(int maxSize, Duration idleTimeout, Duration healthCheckInterval) {
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    static ClusterPool getInstance() {
+        return INSTANCE;
+    }
+
+    static {
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "couchbase-cluster-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(INSTANCE::evictIdle, 30, 30, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::closeAll, "couchbase-cluster-pool-shutdown"));
+    }
+
+    Cluster acquire(Key key, Supplier<Cluster> factory) {
+        while (true) {
+            Entry entry;
+            boolean connect = false;
+            boolean check = false;
+            List<Entry> toClose = List.of();
+
+            synchronized (this) {
+                entry = entries.get(key);
+
+                if (entry == null) {
+                    entry = new Entry(key);
+                    entries.put(key, entry);
+                    connect = true;
+                } else if (entry.references == 0 && entry.lastHealthCheck.plus(healthCheckInterval).isBefore(Instant.now())) {
+                    entry.lastHealthCheck = Instant.now();
+                    check = true;
+                }
+
+                // counted before evicting, so a cluster still connecting is never picked
+                entry.references++;
+                entry.lastUsed = Instant.now();
+
+                if (connect) {
+                    toClose = evictOverflow();
+                }
+            }
+
+            toClose.forEach(Entry::close);
+
+            // connecting and health checks run outside the lock, a slow cluster only holds up the callers waiting for it
+            Cluster cluster;
+            try {
+                cluster = connect ? entry.connect(factory) : entry.connection.join();
+            } catch (RuntimeException e) {
+                unlease(entry);
+                throw e instanceof CompletionException && e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+
+            if (check && !isHealthy(entry.key, cluster)) {
+                logger.debug("Replacing unhealthy Couchbase cluster '{}'", key);
+                if (unlease(entry)) {
+                    entry.close();
+                }
+                continue;
+            }
+
+            synchronized (this) {
+                leased.put(cluster, entry);
+            }
+
+            return cluster;
+        }
+    }
+
+    /**
+     * Drops an entry from the pool along with the reference taken on it, returning whether it is now unused and must be closed.
+     */
+    private synchronized boolean unlease(Entry entry) {
+        entries.remove(entry.key, entry);
+        entry.references--;
+
+        return entry.references == 0;
+    }
+
+    void release(Cluster cluster) {
+        Entry toClose = null;
+
+        synchronized (this) {
+            Entry entry = leased.get(cluster);
+            if (entry == null) {
+                logger.debug("Ignoring release of a Couchbase cluster that is not leased from the pool");
+                return;
+            }
+
+            entry.references--;
+            entry.lastUsed = Instant.now();
+
+            if (entry.references == 0) {
+                leased.remove(cluster);
+
+                // evicted or replaced while in use, nobody else can reach it anymore
+                if (entries.get(entry.key) != entry) {
+                    toClose = entry;
+                }
+            }
+        }
+
+        if (toClose != null) {
+            toClose.close();
+        }
+    }
+
+    void evictIdle() {
+        List<Entry> toClose = new ArrayList<>();
+        Instant threshold = Instant.now().minus(idleTimeout);
+
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.references == 0 && entry.lastUsed.isBefore(threshold)) {
+                    iterator.remove();
+                    toClose.add(entry);
+                }
+            }
+        }
+
+        toClose.forEach(Entry::close);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private List<Entry> evictOverflow() {
+        List<Entry> evicted = new ArrayList<>();
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            // clusters in use are never closed under a running task, the pool may temporarily exceed its max size
+            if (entry.references == 0) {
+                iterator.remove();
+                evicted.add(entry);
+            }
+        }
+
+        return evicted;
+    }
+
+    private boolean isHealthy(Key key, Cluster cluster) {
+        try {
+            return cluster.diagnostics().state() != ClusterState.OFFLINE;
+        } catch (RuntimeException e) {
+            logger.debug("Health check failed for Couchbase cluster '{}'", key, e);
+            return false;
+        }
+    }
+
+    private void closeAll() {
+        List<Entry> toClose = new ArrayList<>();
+
+        synchronized (this) {
+            // leased clusters are closed by their last release
+            entries.values().stream()
+                .filter(entry -> entry.references == 0)
+                .forEach(toClose::add);
+            entries.clear();
+        }
+
+        toClose.forEach(Entry::close);
+    }
+
+    /**
+     * Rendered connection settings identifying a shared cluster.
+     */
+    record Key(String connectionString, String username, String password, ClusterEnvironmentConfig.Rendered environment) {
+        @Override
+        public String toString() {
+            return username + "@" + connectionString;
+        }
+    }
+
+    private static class Entry {
+        private final Key key;
+        // completed by the first caller, the others wait for it without holding the pool lock
+        private final CompletableFuture<Cluster> connection = new CompletableFuture<>();
+        private int references;
+        private Instant lastUsed = Instant.now();
+        private Instant lastHealthCheck = Instant.now();
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        private Cluster connect(Supplier<Cluster> factory) {
+            try {
+                Cluster cluster = factory.get();
+                connection.complete(cluster);
+                return cluster;
+            } catch (RuntimeException e) {
+                connection.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        private void close() {
+            // only connected entries are ever unused, failed ones are dropped by their callers
+            if (!connection.isDone() || connection.isCompletedExceptionally()) {
+                return;
+            }
+
+            Cluster cluster = connection.join();
+
+            try {
+                cluster.disconnect();
+            } catch (RuntimeException e) {
+                logger.warn("Unable to disconnect Couchbase cluster '{}'", key, e);
+            } finally {
+                cluster.environment().shutdown();
+            }
+        }
+    }
+}
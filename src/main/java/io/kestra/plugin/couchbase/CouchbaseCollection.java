@@ -0,0 +1,57 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.couchbase.client.core.error.DecodingFailureException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.Collection;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import lombok.experimental.SuperBuilder;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+public abstract class CouchbaseCollection extends CouchbaseConnection implements CouchbaseCollectionInterface {
+    @NotNull
+    protected Property<String> bucket;
+
+    @NotNull
+    @Builder.Default
+    protected Property<String> scope = Property.ofValue("_default");
+
+    @NotNull
+    @Builder.Default
+    protected Property<String> collection = Property.ofValue("_default");
+
+    protected Collection openCollection(RunContext runContext, Cluster cluster) throws IllegalVariableEvaluationException {
+        return cluster
+            .bucket(runContext.render(bucket).as(String.class).orElseThrow())
+            .scope(runContext.render(scope).as(String.class).orElseThrow())
+            .collection(runContext.render(collection).as(String.class).orElseThrow());
+    }
+
+    /**
+     * Puts the JSON content of a document in the row as `content`, or its raw bytes as `binary` when it is not a JSON
+     * document, e.g. one written with the raw binary transcoder, so a single such document does not fail the whole read.
+     */
+    protected static void putContent(Map<String, Object> row, Supplier<Object> content, Supplier<byte[]> bytes) {
+        try {
+            row.put("content", content.get());
+        } catch (DecodingFailureException e) {
+            row.put("binary", bytes.get());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.kestra.plugin.couchbase;
+
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.property.Property;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public interface CouchbaseCollectionInterface {
+    @Schema(
+        title = "Target bucket",
+        description = "Renderable bucket name; the credentials must have data access on it."
+    )
+    @PluginProperty(group = "main")
+    Property<String> getBucket();
+
+    @Schema(
+        title = "Target scope",
+        description = "Renderable scope name inside the bucket. Defaults to `_default`."
+    )
+    @PluginProperty(group = "main")
+    Property<String> getScope();
+
+    @Schema(
+        title = "Target collection",
+        description = "Renderable collection name inside the scope. Defaults to `_default`."
+    )
+    @PluginProperty(group = "main")
+    Property<String> getCollection();
+}
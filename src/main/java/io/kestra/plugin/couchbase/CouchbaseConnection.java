@@ -2,7 +2,6 @@ package io.kestra.plugin.couchbase;
 
 import com.couchbase.client.java.Cluster;
 import com.couchbase.client.java.ClusterOptions;
-import com.couchbase.client.java.env.ClusterEnvironment;
 
 import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.tasks.Task;
@@ -10,6 +9,7 @@ import io.kestra.core.runners.RunContext;
 
 import io.kestra.core.models.annotations.PluginProperty;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.EqualsAndHashCode;
@@ -39,19 +39,37 @@ public abstract class CouchbaseConnection extends Task implements CouchbaseConne
     @PluginProperty(secret = true, dynamic = true, group = "connection")
     protected String password;
 
+    @Valid
+    protected ClusterEnvironmentConfig environment;
+
+    /**
+     * Leases a connected cluster from the process-wide {@link ClusterPool}, it must be handed back with {@link #close(Cluster)}.
+     */
     protected Cluster connect(RunContext runContext) throws IllegalVariableEvaluationException {
-        return Cluster.connect(
+        return connect(clusterKey(runContext));
+    }
+
+    /**
+     * Rendered connection settings of the task, identifying its cluster in the {@link ClusterPool}.
+     */
+    protected ClusterPool.Key clusterKey(RunContext runContext) throws IllegalVariableEvaluationException {
+        return new ClusterPool.Key(
             runContext.render(connectionString),
-            authenticationOptions(runContext)
+            runContext.render(username),
+            runContext.render(password),
+            environment == null ? ClusterEnvironmentConfig.Rendered.DEFAULT : environment.render(runContext)
         );
     }
 
-    private ClusterOptions authenticationOptions(RunContext runContext) throws IllegalVariableEvaluationException {
-        return ClusterOptions.clusterOptions(runContext.render(username), runContext.render(password)).environment(ClusterEnvironment.create());
+    protected Cluster connect(ClusterPool.Key key) {
+        return ClusterPool.getInstance().acquire(key, () -> Cluster.connect(key.connectionString(), authenticationOptions(key)));
+    }
+
+    private ClusterOptions authenticationOptions(ClusterPool.Key key) {
+        return ClusterOptions.clusterOptions(key.username(), key.password()).environment(key.environment().create());
     }
 
     protected void close(Cluster cluster) {
-        cluster.disconnect();
-        cluster.environment().shutdown();
+        ClusterPool.getInstance().release(cluster);
     }
 }
@@ -25,4 +25,11 @@ public interface CouchbaseConnectionInterface {
     )
     @PluginProperty(secret = true, dynamic = true, group = "connection")
     String getPassword();
+
+    @Schema(
+        title = "Cluster environment settings",
+        description = "Tunes the connection pools, IO threads, default timeouts, value compression and slow operation logging of the SDK. Unset values keep the SDK defaults. Tasks sharing the same connection and environment settings share the same cluster connection."
+    )
+    @PluginProperty(group = "connection")
+    ClusterEnvironmentConfig getEnvironment();
 }
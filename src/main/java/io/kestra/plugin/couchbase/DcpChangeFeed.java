@@ -0,0 +1,162 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import com.couchbase.client.dcp.Client;
+import com.couchbase.client.dcp.StreamFrom;
+import com.couchbase.client.dcp.StreamTo;
+import com.couchbase.client.dcp.highlevel.DatabaseChangeListener;
+import com.couchbase.client.dcp.highlevel.Deletion;
+import com.couchbase.client.dcp.highlevel.DocumentChange;
+import com.couchbase.client.dcp.highlevel.FlowControlMode;
+import com.couchbase.client.dcp.highlevel.Mutation;
+import com.couchbase.client.dcp.highlevel.SnapshotMarker;
+import com.couchbase.client.dcp.highlevel.StreamFailure;
+import com.couchbase.client.dcp.highlevel.StreamOffset;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * {@link ChangeFeed} backed by the Database Change Protocol client.
+ * <p>
+ * The DCP listener runs on its own thread and blocks on a bounded queue when the consumer falls behind; since changes are only
+ * acknowledged once the listener returns, DCP flow control then pauses the server side of the stream.
+ */
+class DcpChangeFeed implements ChangeFeed {
+    private static final int QUEUE_SIZE = 1024;
+
+    private final Client client;
+    private final BlockingQueue<Change> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    DcpChangeFeed(String connectionString, String username, String password, String bucket, List<String> collections, Duration bootstrapTimeout) {
+        Client.Builder builder = Client.builder()
+            .connectionString(connectionString)
+            .credentials(username, password)
+            .bucket(bucket);
+
+        if (bootstrapTimeout != null) {
+            builder.bootstrapTimeout(bootstrapTimeout);
+        }
+
+        if (!collections.isEmpty()) {
+            builder.collectionsAware(true).collectionNames(collections);
+        }
+
+        this.client = builder.build();
+    }
+
+    @Override
+    public Flux<Change> stream(Map<Integer, Checkpoint> checkpoints, StartFrom startFrom) {
+        client.listener(new DatabaseChangeListener() {
+            @Override
+            public void onMutation(Mutation mutation) {
+                offer(change(mutation, ChangeType.MUTATION, mutation.getContent()));
+            }
+
+            @Override
+            public void onDeletion(Deletion deletion) {
+                offer(change(deletion, deletion.isDueToExpiration() ? ChangeType.EXPIRATION : ChangeType.DELETION, null));
+            }
+
+            @Override
+            public void onFailure(StreamFailure streamFailure) {
+                failure.compareAndSet(null, streamFailure.getCause());
+            }
+        }, FlowControlMode.AUTOMATIC);
+
+        client.connect().block();
+        client.initializeState(startFrom == StartFrom.BEGINNING ? StreamFrom.BEGINNING : StreamFrom.NOW, StreamTo.INFINITY).block();
+
+        Map<Integer, StreamOffset> offsets = new HashMap<>();
+        checkpoints.forEach((partition, checkpoint) -> offsets.put(partition, new StreamOffset(
+            checkpoint.vbuuid(),
+            checkpoint.seqno(),
+            new SnapshotMarker(checkpoint.snapshotStart(), checkpoint.snapshotEnd()),
+            checkpoint.collectionsManifestUid()
+        )));
+
+        // partitions without a checkpoint yet, e.g. never changed before the stop, start from startFrom
+        List<Integer> unchecked = IntStream.range(0, client.numPartitions())
+            .boxed()
+            .filter(partition -> !offsets.containsKey(partition))
+            .toList();
+
+        if (!offsets.isEmpty()) {
+            client.resumeStreaming(offsets).block();
+        }
+        if (!unchecked.isEmpty()) {
+            client.startStreaming(unchecked).block();
+        }
+
+        return Flux.<Change>generate(sink -> {
+                try {
+                    Change change = null;
+                    while (change == null && !closed.get() && failure.get() == null) {
+                        change = queue.poll(100, TimeUnit.MILLISECONDS);
+                    }
+
+                    if (failure.get() != null) {
+                        sink.error(failure.get());
+                    } else if (change == null) {
+                        sink.complete();
+                    } else {
+                        sink.next(change);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    sink.complete();
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .doFinally(signal -> close());
+    }
+
+    private void offer(Change change) {
+        try {
+            while (!closed.get() && !queue.offer(change, 100, TimeUnit.MILLISECONDS)) {
+                // wait for the consumer, this holds DCP flow control
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Change change(DocumentChange documentChange, ChangeType type, byte[] content) {
+        StreamOffset offset = documentChange.getOffset();
+
+        return new Change(
+            documentChange.getVbucket(),
+            new Checkpoint(
+                offset.getVbuuid(),
+                offset.getSeqno(),
+                offset.getSnapshot().getStartSeqno(),
+                offset.getSnapshot().getEndSeqno(),
+                offset.getCollectionsManifestUid()
+            ),
+            type,
+            documentChange.getKey(),
+            documentChange.getCas(),
+            documentChange.getCollection().name(),
+            content
+        );
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            client.disconnect().block();
+        }
+    }
+}
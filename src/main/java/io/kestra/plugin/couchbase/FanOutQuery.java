@@ -0,0 +1,331 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.json.JsonArray;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.query.QueryOptions;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Run one N1QL statement on many buckets, scopes or clusters",
+    description = "Runs the rendered statement once per target, concurrently through the reactive query API, and streams the rows of every target into a single file in Kestra internal storage, each row carrying the name of its target in a `target` column, which replaces any `target` column returned by the statement. A target runs in the query context of its bucket and scope, so unqualified collection names resolve to that scope, and may override the connection and the parameters of the task. Targets sharing a cluster share one pooled connection, and at most `concurrencyPerCluster` statements run at once on each cluster. The task fails on the first failing target."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Count the open orders of every tenant bucket, across two clusters",
+            full = true,
+            code = """
+                id: couchbase_fan_out_query
+                namespace: company.team
+
+                tasks:
+                  - id: open_orders
+                    type: io.kestra.plugin.couchbase.FanOutQuery
+                    connectionString: couchbase://eu.example.com
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT COUNT(*) AS open FROM orders WHERE status = $status
+                    parameters:
+                      status: OPEN
+                    targets:
+                      - name: acme
+                        bucket: acme
+                        scope: sales
+                      - name: globex
+                        bucket: globex
+                        scope: sales
+                      - name: initech
+                        connectionString: couchbase://us.example.com
+                        password: "{{ secret('COUCHBASE_US_PASSWORD') }}"
+                        bucket: initech
+                        scope: sales
+                    concurrencyPerCluster: 8
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "targets", type = Counter.TYPE, description = "Number of targets queried."),
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of rows returned by all targets."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent querying all targets.")
+    }
+)
+public class FanOutQuery extends CouchbaseConnection implements RunnableTask<FanOutQuery.Output> {
+    @Schema(
+        title = "Renderable N1QL statement run on every target",
+        description = "Unqualified collection names resolve to the bucket and scope of each target."
+    )
+    @NotNull
+    @NotBlank
+    @PluginProperty(dynamic = true, group = "main")
+    protected String query;
+
+    @Schema(
+        title = "Query parameters for placeholders",
+        description = "A map for named parameters or a list for positional ones; a target may replace them with its own.",
+        anyOf = {
+            Map.class,
+            String[].class
+        }
+    )
+    @PluginProperty(group = "main")
+    protected Object parameters;
+
+    @Schema(
+        title = "Targets to run the statement on"
+    )
+    @NotEmpty
+    @Valid
+    @PluginProperty(group = "main")
+    protected List<Target> targets;
+
+    @Schema(
+        title = "Maximum number of statements running at once on each cluster"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrencyPerCluster = Property.ofValue(4);
+
+    @Schema(
+        title = "Format of the stored file",
+        description = "See `Query` for the available formats."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Query.OutputFormat> outputFormat = Property.ofValue(Query.OutputFormat.ION);
+
+    @Schema(
+        title = "Compression of the stored file"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Query.Compression> compression = Property.ofValue(Query.Compression.NONE);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String renderedQuery = runContext.render(query);
+        int renderedConcurrency = runContext.render(concurrencyPerCluster).as(Integer.class).orElseThrow();
+        Query.OutputFormat renderedOutputFormat = runContext.render(outputFormat).as(Query.OutputFormat.class).orElseThrow();
+        Query.Compression renderedCompression = runContext.render(compression).as(Query.Compression.class).orElseThrow();
+
+        Map<ClusterPool.Key, List<RenderedTarget>> byCluster = new LinkedHashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Target target : targets) {
+            RenderedTarget rendered = render(runContext, target);
+            if (!names.add(rendered.name())) {
+                throw new IllegalArgumentException("Target names must be unique, '" + rendered.name() + "' is used more than once");
+            }
+            byCluster.computeIfAbsent(rendered.cluster(), key -> new ArrayList<>()).add(rendered);
+        }
+
+        Map<ClusterPool.Key, Cluster> clusters = new LinkedHashMap<>();
+        try {
+            for (ClusterPool.Key key : byCluster.keySet()) {
+                clusters.put(key, connect(key));
+            }
+
+            File tempFile = runContext.workingDir().createTempFile(RowWriter.extension(renderedOutputFormat, renderedCompression)).toFile();
+            Map<String, AtomicLong> sizes = new ConcurrentHashMap<>();
+            long start = System.nanoTime();
+
+            Long size;
+            try (RowWriter writer = RowWriter.of(renderedOutputFormat, renderedCompression, new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE))) {
+                // each cluster bounds its own statements, clusters run side by side
+                size = Flux.fromIterable(byCluster.entrySet())
+                    .flatMap(
+                        group -> Flux.fromIterable(group.getValue())
+                            .flatMap(target -> rows(clusters.get(group.getKey()), renderedQuery, target), renderedConcurrency),
+                        byCluster.size()
+                    )
+                    .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH)
+                    .doOnNext(row -> sizes.computeIfAbsent((String) row.get("target"), name -> new AtomicLong()).incrementAndGet())
+                    .doOnNext(throwConsumer(writer::write))
+                    .count()
+                    .block();
+            }
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            runContext.metric(Counter.of("targets", targets.size()));
+            runContext.metric(Counter.of("records", size));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Fetched {} rows from {} targets on {} clusters in {}", size, targets.size(), clusters.size(), duration);
+
+            Map<String, Long> targetSizes = new LinkedHashMap<>();
+            byCluster.values().stream()
+                .flatMap(List::stream)
+                .forEach(target -> targetSizes.put(target.name(), sizes.getOrDefault(target.name(), new AtomicLong()).get()));
+
+            return Output.builder()
+                .uri(runContext.storage().putFile(tempFile))
+                .size(size)
+                .sizes(targetSizes)
+                .build();
+        } finally {
+            clusters.values().forEach(this::close);
+        }
+    }
+
+    private RenderedTarget render(RunContext runContext, Target target) throws IllegalVariableEvaluationException {
+        ClusterPool.Key taskCluster = clusterKey(runContext);
+        ClusterPool.Key cluster = new ClusterPool.Key(
+            target.getConnectionString() == null ? taskCluster.connectionString() : runContext.render(target.getConnectionString()),
+            target.getUsername() == null ? taskCluster.username() : runContext.render(target.getUsername()),
+            target.getPassword() == null ? taskCluster.password() : runContext.render(target.getPassword()),
+            taskCluster.environment()
+        );
+
+        String bucket = runContext.render(target.getBucket()).as(String.class).orElseThrow();
+        String scope = runContext.render(target.getScope()).as(String.class).orElseThrow();
+        String name = runContext.render(target.getName()).as(String.class).orElse(cluster.connectionString() + "/" + bucket + "/" + scope);
+
+        return new RenderedTarget(name, cluster, bucket, scope, target.getParameters() == null ? parameters : target.getParameters());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Flux<Map<String, Object>> rows(Cluster cluster, String statement, RenderedTarget target) {
+        QueryOptions queryOptions = QueryOptions.queryOptions();
+        if (target.parameters() instanceof Map) {
+            queryOptions.parameters(JsonObject.from((Map<String, ?>) target.parameters()));
+        } else if (target.parameters() instanceof List) {
+            queryOptions.parameters(JsonArray.from((List<?>) target.parameters()));
+        }
+
+        return Mono.defer(() -> cluster.bucket(target.bucket()).scope(target.scope()).reactive().query(statement, queryOptions))
+            .flatMapMany(result -> result.rowsAs(Query.MAP_TYPE_REF))
+            .map(row -> {
+                Map<String, Object> tagged = new LinkedHashMap<>();
+                tagged.put("target", target.name());
+                // the tag wins over a column of the same name returned by the statement
+                row.forEach((key, value) -> {
+                    if (!"target".equals(key)) {
+                        tagged.put(key, value);
+                    }
+                });
+                return tagged;
+            });
+    }
+
+    private record RenderedTarget(String name, ClusterPool.Key cluster, String bucket, String scope, Object parameters) {
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Target {
+        @Schema(
+            title = "Name of the target in the `target` column",
+            description = "Must be unique among the targets. Defaults to the connection string, bucket and scope of the target."
+        )
+        @PluginProperty
+        Property<String> name;
+
+        @Schema(
+            title = "Connection string of the target cluster",
+            description = "Defaults to the connection string of the task."
+        )
+        @PluginProperty(dynamic = true)
+        String connectionString;
+
+        @Schema(
+            title = "Username on the target cluster",
+            description = "Defaults to the username of the task."
+        )
+        @PluginProperty(secret = true, dynamic = true)
+        String username;
+
+        @Schema(
+            title = "Password on the target cluster",
+            description = "Defaults to the password of the task."
+        )
+        @ToString.Exclude
+        @PluginProperty(secret = true, dynamic = true)
+        String password;
+
+        @Schema(
+            title = "Bucket of the query context"
+        )
+        @NotNull
+        @PluginProperty
+        Property<String> bucket;
+
+        @Schema(
+            title = "Scope of the query context"
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<String> scope = Property.ofValue("_default");
+
+        @Schema(
+            title = "Query parameters of the target",
+            description = "Replace the parameters of the task for this target."
+        )
+        @PluginProperty
+        Object parameters;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Rows URI",
+            description = "Rows of every target, with the target name in their `target` column. Rows of a target keep their order, rows of different targets are interleaved."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of rows returned by all targets"
+        )
+        private Long size;
+
+        @Schema(
+            title = "Number of rows returned by each target"
+        )
+        private Map<String, Long> sizes;
+    }
+}
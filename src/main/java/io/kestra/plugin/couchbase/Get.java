@@ -0,0 +1,255 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.kv.GetResult;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Fetch Couchbase documents by key",
+    description = "Reads documents through the key-value service with pipelined, concurrent gets, skipping the query service entirely. Keys come from an inline list or from an ion file in internal storage. Found documents are streamed to an ion file and missing keys are written to a separate one."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Fetch a list of documents by key",
+            full = true,
+            code = """
+                id: couchbase_get
+                namespace: company.team
+
+                tasks:
+                  - id: get
+                    type: io.kestra.plugin.couchbase.Get
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    keys:
+                      - user::1
+                      - user::2
+                """
+        ),
+        @Example(
+            title = "Fetch the documents whose keys were stored by a previous query",
+            full = true,
+            code = """
+                id: couchbase_get_from_query
+                namespace: company.team
+
+                tasks:
+                  - id: ids
+                    type: io.kestra.plugin.couchbase.Query
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT META().id AS id FROM `my_bucket` WHERE type = 'user'
+
+                  - id: get
+                    type: io.kestra.plugin.couchbase.Get
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    from: "{{ outputs.ids.uri }}"
+                    keyField: id
+                    concurrency: 128
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of documents found."),
+        @Metric(name = "missing", type = Counter.TYPE, description = "Number of keys without a document."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent fetching documents.")
+    }
+)
+public class Get extends CouchbaseCollection implements RunnableTask<Get.Output> {
+    @Schema(
+        title = "Document keys to fetch",
+        description = "Inline list of keys; use `from` instead for large key sets."
+    )
+    @PluginProperty(group = "main")
+    protected Property<List<String>> keys;
+
+    @Schema(
+        title = "Keys file URI",
+        description = "Kestra internal storage URI of an ion file holding the keys, either as plain strings or as objects carrying the key in `keyField`."
+    )
+    @PluginProperty(internalStorageURI = true, group = "main")
+    protected Property<String> from;
+
+    @Schema(
+        title = "Key field",
+        description = "Field holding the document key when the rows of `from` are objects."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<String> keyField = Property.ofValue("id");
+
+    @Schema(
+        title = "Maximum number of in-flight gets",
+        description = "Bounds the reads pending on the cluster; keys are read only as gets complete."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(32);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        List<String> renderedKeys = runContext.render(keys).asList(String.class);
+        String renderedFrom = runContext.render(from).as(String.class).orElse(null);
+        if (renderedKeys.isEmpty() == (renderedFrom == null)) {
+            throw new IllegalArgumentException("Exactly one of 'keys' or 'from' must be set");
+        }
+
+        String renderedKeyField = runContext.render(keyField).as(String.class).orElseThrow();
+        int renderedConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            ReactiveCollection source = openCollection(runContext, cluster).reactive();
+
+            File foundFile = runContext.workingDir().createTempFile(".ion").toFile();
+            File missingFile = runContext.workingDir().createTempFile(".ion").toFile();
+            long start = System.nanoTime();
+
+            Long found;
+            AtomicLong missing = new AtomicLong();
+            try (
+                BufferedReader reader = renderedFrom == null ? null : new BufferedReader(new InputStreamReader(runContext.storage().getFile(new URI(renderedFrom))), FileSerde.BUFFER_SIZE);
+                OutputStream foundOutput = new BufferedOutputStream(new FileOutputStream(foundFile), FileSerde.BUFFER_SIZE);
+                OutputStream missingOutput = new BufferedOutputStream(new FileOutputStream(missingFile), FileSerde.BUFFER_SIZE)
+            ) {
+                Flux<String> ids = reader == null ? Flux.fromIterable(renderedKeys) : FileSerde.readAll(reader).map(row -> key(row, renderedKeyField));
+
+                found = ids
+                    .flatMap(id -> fetch(source, id), renderedConcurrency)
+                    // files are written off the IO event loop
+                    .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH)
+                    .doOnNext(throwConsumer(result -> {
+                        if (result.document() == null) {
+                            missing.incrementAndGet();
+                            FileSerde.write(missingOutput, result.id());
+                        } else {
+                            FileSerde.write(foundOutput, result.toRow());
+                        }
+                    }))
+                    .filter(result -> result.document() != null)
+                    .count()
+                    .block();
+            }
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            runContext.metric(Counter.of("records", found));
+            runContext.metric(Counter.of("missing", missing.get()));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Fetched {} documents in {}, {} keys missing", found, duration, missing.get());
+
+            return Output.builder()
+                .uri(runContext.storage().putFile(foundFile))
+                .size(found)
+                .missingUri(runContext.storage().putFile(missingFile))
+                .missingCount(missing.get())
+                .build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    private static String key(Object row, String keyField) {
+        if (row instanceof Map<?, ?> map) {
+            Object value = map.get(keyField);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing key field '" + keyField + "' in row " + row);
+            }
+
+            return value.toString();
+        }
+
+        return row.toString();
+    }
+
+    private static Mono<Fetched> fetch(ReactiveCollection source, String id) {
+        return source.get(id)
+            .map(result -> new Fetched(id, result))
+            .onErrorResume(DocumentNotFoundException.class, e -> Mono.just(new Fetched(id, null)));
+    }
+
+    private record Fetched(String id, GetResult document) {
+        private Map<String, Object> toRow() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id", id);
+            row.put("cas", document.cas());
+            putContent(row, () -> document.contentAs(Object.class), document::contentAsBytes);
+            return row;
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Found documents URI",
+            description = "Ion file with one row per found document holding its `id`, `cas` and `content`, or its raw bytes as `binary` for a document that is not JSON."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of documents found"
+        )
+        private Long size;
+
+        @Schema(
+            title = "Missing keys URI",
+            description = "Ion file with one row per key that has no document."
+        )
+        private URI missingUri;
+
+        @Schema(
+            title = "Number of missing keys"
+        )
+        private Long missingCount;
+    }
+}
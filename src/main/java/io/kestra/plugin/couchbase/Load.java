@@ -0,0 +1,277 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.codec.RawJsonTranscoder;
+import com.couchbase.client.java.kv.InsertOptions;
+import com.couchbase.client.java.kv.MutationState;
+import com.couchbase.client.java.kv.MutationResult;
+import com.couchbase.client.java.kv.ReplaceOptions;
+import com.couchbase.client.java.kv.UpsertOptions;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Bulk write documents into a Couchbase collection",
+    description = "Streams an ion file from Kestra internal storage and writes each row as a JSON document through the key-value service, which is much faster than N1QL INSERT statements. Writes run concurrently, and documents that fail are collected in a separate ion file instead of failing the task."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Upsert the rows stored by a previous task, using the `id` field of each row as document key",
+            full = true,
+            code = """
+                id: couchbase_load
+                namespace: company.team
+
+                inputs:
+                  - id: file
+                    type: FILE
+
+                tasks:
+                  - id: load
+                    type: io.kestra.plugin.couchbase.Load
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    from: "{{ inputs.file }}"
+                    bucket: my_bucket
+                    scope: my_scope
+                    collection: my_collection
+                    key: "{{ row.id }}"
+                    concurrency: 64
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of documents written."),
+        @Metric(name = "errors", type = Counter.TYPE, description = "Number of documents that could not be written."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent writing documents.")
+    }
+)
+public class Load extends CouchbaseCollection implements RunnableTask<Load.Output> {
+    @Schema(
+        title = "Source file URI",
+        description = "Kestra internal storage URI of an ion file; each row must be an object and becomes one document."
+    )
+    @NotNull
+    @PluginProperty(internalStorageURI = true, group = "main")
+    protected Property<String> from;
+
+    @Schema(
+        title = "Document key expression",
+        description = "Rendered for each row, with the row exposed as `row`, to build the document key."
+    )
+    @NotNull
+    @NotBlank
+    @PluginProperty(dynamic = true, group = "main")
+    protected String key;
+
+    @Schema(
+        title = "Write operation",
+        description = "UPSERT creates or overwrites documents, INSERT fails for existing keys and REPLACE fails for missing keys."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<WriteMode> writeMode = Property.ofValue(WriteMode.UPSERT);
+
+    @Schema(
+        title = "Maximum number of in-flight writes",
+        description = "Bounds the writes pending on the cluster; rows are read from storage only as writes complete."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(32);
+
+    @Schema(
+        title = "Durability level",
+        description = "Synchronous durability requirement of each write. Defaults to NONE."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<DurabilityLevel> durability = Property.ofValue(DurabilityLevel.NONE);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        URI from = new URI(runContext.render(this.from).as(String.class).orElseThrow());
+        WriteMode renderedWriteMode = runContext.render(writeMode).as(WriteMode.class).orElseThrow();
+        int renderedConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+        DurabilityLevel renderedDurability = runContext.render(durability).as(DurabilityLevel.class).orElseThrow();
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            ReactiveCollection target = openCollection(runContext, cluster).reactive();
+
+            File errorsFile = runContext.workingDir().createTempFile(".ion").toFile();
+            AtomicLong written = new AtomicLong();
+            MutationState mutationState = new MutationState();
+            long start = System.nanoTime();
+
+            Long errorCount;
+            try (
+                BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(from)), FileSerde.BUFFER_SIZE);
+                Writer errorsWriter = new BufferedWriter(new FileWriter(errorsFile), FileSerde.BUFFER_SIZE)
+            ) {
+                Flux<Map<String, Object>> errors = FileSerde.readAll(reader)
+                    .index()
+                    .flatMap(
+                        indexed -> write(runContext, target, indexed.getT1(), indexed.getT2(), renderedWriteMode, renderedDurability)
+                            .doOnNext(result -> {
+                                written.incrementAndGet();
+                                result.mutationToken().ifPresent(token -> {
+                                    synchronized (mutationState) {
+                                        mutationState.add(token);
+                                    }
+                                });
+                            })
+                            .then(Mono.<Map<String, Object>>empty())
+                            .onErrorResume(LoadException.class, e -> Mono.just(e.toRow())),
+                        renderedConcurrency
+                    )
+                    // error rows are written off the IO event loop
+                    .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH);
+
+                errorCount = FileSerde.writeAll(errorsWriter, errors).block();
+            }
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            double throughput = written.get() / Math.max(duration.toMillis() / 1000.0, 0.001);
+
+            runContext.metric(Counter.of("records", written.get()));
+            runContext.metric(Counter.of("errors", errorCount));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Wrote {} documents in {} ({} docs/s), {} errors", written.get(), duration, Math.round(throughput), errorCount);
+
+            Output.OutputBuilder output = Output.builder()
+                .size(written.get())
+                .errorCount(errorCount)
+                .mutationState(mutationState.export().toMap());
+
+            if (errorCount > 0) {
+                output.errorsUri(runContext.storage().putFile(errorsFile));
+            }
+
+            return output.build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    private Mono<MutationResult> write(RunContext runContext, ReactiveCollection target, long index, Object row, WriteMode writeMode, DurabilityLevel durability) {
+        String id = null;
+        byte[] content;
+
+        try {
+            if (!(row instanceof Map)) {
+                throw new IllegalArgumentException("Row must be an object, got '" + row + "'");
+            }
+
+            id = runContext.render(key, Map.of("row", row));
+            content = JacksonMapper.ofJson().writeValueAsBytes(row);
+        } catch (Exception e) {
+            return Mono.error(new LoadException(index, id, e));
+        }
+
+        Mono<MutationResult> mutation = switch (writeMode) {
+            case UPSERT -> target.upsert(id, content, UpsertOptions.upsertOptions().transcoder(RawJsonTranscoder.INSTANCE).durability(durability));
+            case INSERT -> target.insert(id, content, InsertOptions.insertOptions().transcoder(RawJsonTranscoder.INSTANCE).durability(durability));
+            case REPLACE -> target.replace(id, content, ReplaceOptions.replaceOptions().transcoder(RawJsonTranscoder.INSTANCE).durability(durability));
+        };
+
+        String documentId = id;
+        return mutation.onErrorMap(e -> new LoadException(index, documentId, e));
+    }
+
+    public enum WriteMode {
+        UPSERT,
+        INSERT,
+        REPLACE
+    }
+
+    private static class LoadException extends RuntimeException {
+        private final long index;
+        private final String id;
+
+        private LoadException(long index, String id, Throwable cause) {
+            super(cause.getMessage(), cause);
+            this.index = index;
+            this.id = id;
+        }
+
+        private Map<String, Object> toRow() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("index", index);
+            row.put("key", id);
+            row.put("error", getCause().getClass().getSimpleName());
+            row.put("message", getMessage());
+            return row;
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Number of documents written"
+        )
+        private Long size;
+
+        @Schema(
+            title = "Number of documents that failed"
+        )
+        private Long errorCount;
+
+        @Schema(
+            title = "Failed documents URI",
+            description = "Present when at least one document failed; ion file with the row index, document key and error of each failure."
+        )
+        private URI errorsUri;
+
+        @Schema(
+            title = "Mutation state of the written documents",
+            description = "Pass it as `consistentWith` of a `Query` with AT_PLUS scan consistency to read these writes without waiting for every other pending mutation."
+        )
+        private Map<String, Object> mutationState;
+    }
+}
@@ -0,0 +1,45 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.couchbase.client.java.Cluster;
+
+/**
+ * Tracks which rendered statements have already been prepared on each pooled {@link Cluster}.
+ * <p>
+ * The prepared plans themselves are held by the SDK inside the cluster, which {@link ClusterPool} keeps warm across
+ * {@link Query} runs and {@link Trigger} polls; this cache mirrors the SDK's bounded LRU so hits and misses can be reported.
+ * The SDK does not expose its plan cache, so these are estimates: a plan it dropped on its own, e.g. after an index change
+ * or a node failover, is still counted as a hit here.
+ */
+final class PreparedStatementCache {
+    // default size of the SDK query plan cache
+    private static final int MAX_STATEMENTS = 5000;
+
+    private static final PreparedStatementCache INSTANCE = new PreparedStatementCache();
+
+    private final Map<Cluster, Map<String, Boolean>> statements = Collections.synchronizedMap(new WeakHashMap<>());
+
+    static PreparedStatementCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records a prepared execution of the statement and returns whether its plan is estimated to be cached already.
+     */
+    boolean record(Cluster cluster, String statement) {
+        Map<String, Boolean> prepared = statements.computeIfAbsent(cluster, key -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_STATEMENTS;
+            }
+        });
+
+        synchronized (prepared) {
+            return prepared.put(statement, Boolean.TRUE) != null;
+        }
+    }
+}
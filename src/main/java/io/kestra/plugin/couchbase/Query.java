@@ -2,31 +2,53 @@ package io.kestra.plugin.couchbase;
 
 import java.io.*;
 import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.couchbase.client.java.Cluster;
 import com.couchbase.client.java.codec.TypeRef;
 import com.couchbase.client.java.json.JsonArray;
 import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.kv.MutationState;
+import com.couchbase.client.java.query.QueryMetaData;
 import com.couchbase.client.java.query.QueryOptions;
+import com.couchbase.client.java.query.QueryProfile;
 import com.couchbase.client.java.query.QueryResult;
+import com.couchbase.client.java.query.QueryScanConsistency;
 
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
 import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.models.tasks.common.FetchType;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import io.kestra.core.models.annotations.PluginProperty;
 
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+import static io.kestra.core.utils.Rethrow.throwFunction;
+
 @SuperBuilder
 @ToString
 @EqualsAndHashCode
@@ -55,10 +77,142 @@ import io.kestra.core.models.annotations.PluginProperty;
                     fetchType: FETCH
                 """
         ),
+        @Example(
+            title = "Run a parameterized N1QL statement as a prepared statement, reusing its query plan across executions",
+            full = true,
+            code = """
+                id: couchbase_prepared_query
+                namespace: company.team
+
+                inputs:
+                  - id: customer
+                    type: STRING
+
+                tasks:
+                  - id: query
+                    type: io.kestra.plugin.couchbase.Query
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT * FROM `COUCHBASE_BUCKET` WHERE customer = $customer
+                    parameters:
+                      customer: "{{ inputs.customer }}"
+                    adhoc: false
+                    fetchType: FETCH
+                """
+        ),
+        @Example(
+            title = "Export a large collection in pages of 100,000 rows, one file per page, and process each page in parallel",
+            full = true,
+            code = """
+                id: couchbase_chunked_export
+                namespace: company.team
+
+                tasks:
+                  - id: export
+                    type: io.kestra.plugin.couchbase.Query
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: |
+                      SELECT META(d).id AS id, d.* FROM `COUCHBASE_BUCKET` d
+                      WHERE META(d).id > $lastKey
+                      ORDER BY META(d).id
+                      LIMIT $size
+                    chunking:
+                      size: 100000
+                      key: id
+                      initialKey: ""
+
+                  - id: each
+                    type: io.kestra.plugin.core.flow.ForEach
+                    values: "{{ outputs.export.uris }}"
+                    concurrencyLimit: 4
+                    tasks:
+                      - id: log
+                        type: io.kestra.plugin.core.log.Log
+                        message: "{{ taskrun.value }}"
+                """
+        ),
+        @Example(
+            title = "Read documents right after loading them, with AT_PLUS scan consistency and tuned execution",
+            full = true,
+            code = """
+                id: couchbase_load_then_query
+                namespace: company.team
+
+                inputs:
+                  - id: file
+                    type: FILE
+
+                tasks:
+                  - id: load
+                    type: io.kestra.plugin.couchbase.Load
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    from: "{{ inputs.file }}"
+                    bucket: my_bucket
+                    key: "{{ row.id }}"
+
+                  - id: query
+                    type: io.kestra.plugin.couchbase.Query
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT * FROM `my_bucket` WHERE type = 'order'
+                    scanConsistency: AT_PLUS
+                    consistentWith: "{{ outputs.load.mutationState }}"
+                    queryTimeout: PT2M
+                    maxParallelism: 8
+                    readonly: true
+                """
+        ),
+        @Example(
+            title = "Refuse to run a statement whose plan scans a whole collection, and report the indexes to create",
+            full = true,
+            code = """
+                id: couchbase_preflight_query
+                namespace: company.team
+
+                tasks:
+                  - id: query
+                    type: io.kestra.plugin.couchbase.Query
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT * FROM `shop`.`sales`.`orders` WHERE customer = $customer
+                    parameters:
+                      customer: c-42
+                    fetchType: FETCH
+                    preflight:
+                      onFullScan: FAIL
+                      advise: true
+                """
+        ),
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of rows returned."),
+        @Metric(name = "connect.duration", type = Timer.TYPE, description = "Time spent leasing a connected cluster."),
+        @Metric(name = "query.duration", type = Timer.TYPE, description = "Time until the rows are available: the whole response for FETCH and FETCH_ONE, the first row for STORE."),
+        @Metric(name = "decode.duration", type = Timer.TYPE, description = "Time spent decoding rows, for FETCH and FETCH_ONE."),
+        @Metric(name = "store.duration", type = Timer.TYPE, description = "Time spent streaming and serializing rows to the output file, for STORE."),
+        @Metric(name = "upload.duration", type = Timer.TYPE, description = "Time spent uploading the output file to internal storage, for STORE."),
+        @Metric(name = "server.elapsed.duration", type = Timer.TYPE, description = "Total request time reported by the query service."),
+        @Metric(name = "server.execution.duration", type = Timer.TYPE, description = "Execution time reported by the query service."),
+        @Metric(name = "server.result.count", type = Counter.TYPE, description = "Result count reported by the query service."),
+        @Metric(name = "server.result.size", type = Counter.TYPE, description = "Result size in bytes reported by the query service."),
+        @Metric(name = "server.mutation.count", type = Counter.TYPE, description = "Mutation count reported by the query service."),
+        @Metric(name = "prepared.cache.hit.estimated", type = Counter.TYPE, description = "Prepared executions whose plan is likely cached by the SDK already, estimated from the statements prepared on the same pooled cluster."),
+        @Metric(name = "prepared.cache.miss.estimated", type = Counter.TYPE, description = "Prepared executions estimated to prepare the statement first; the SDK plan cache itself is not observable."),
+        @Metric(name = "cache.hit", type = Counter.TYPE, description = "Runs answered from the result cache."),
+        @Metric(name = "cache.miss", type = Counter.TYPE, description = "Runs with a result cache that had to query the cluster."),
+        @Metric(name = "preflight.duration", type = Timer.TYPE, description = "Time spent explaining the statement, and advising on it when the plan has a full scan."),
+        @Metric(name = "preflight.full.scans", type = Counter.TYPE, description = "Primary scans and unbounded index scans found in the plan.")
     }
 )
 public class Query extends CouchbaseConnection implements RunnableTask<Query.Output>, QueryInterface {
-    private static final TypeRef<Map<String, Object>> MAP_TYPE_REF = new TypeRef<>() {
+    static final TypeRef<Map<String, Object>> MAP_TYPE_REF = new TypeRef<>() {
     };
 
     @NotNull
@@ -73,53 +227,403 @@ public class Query extends CouchbaseConnection implements RunnableTask<Query.Out
     @PluginProperty(group = "main")
     protected String query;
 
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> adhoc = Property.ofValue(true);
+
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<QueryProfile> profile = Property.ofValue(QueryProfile.OFF);
+
+    @PluginProperty(group = "execution")
+    protected Property<ScanConsistency> scanConsistency;
+
+    @PluginProperty(group = "execution")
+    protected Property<Map<String, Object>> consistentWith;
+
+    @PluginProperty(group = "execution")
+    protected Property<Duration> queryTimeout;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> maxParallelism;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> pipelineBatch;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> pipelineCap;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> scanCap;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> readonly;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> flexIndex;
+
+    @Valid
+    @PluginProperty(group = "execution")
+    protected Preflight preflight;
+
+    @Schema(
+        title = "Format of the stored file",
+        description = "Only applies when fetchType is STORE. ION is the Kestra internal storage default; JSONL writes one JSON document per line. CSV and AVRO are tabular, with nested objects and arrays written as JSON strings. CSV columns are the top-level fields of the first row. AVRO columns and their nullable types are inferred from the first 1,000 rows, integers mixed with decimals being widened to double; a later value that does not fit its column type is written as a string, and fields first appearing after these rows are dropped."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<OutputFormat> outputFormat = Property.ofValue(OutputFormat.ION);
+
+    @Schema(
+        title = "Compression of the stored file",
+        description = "Only applies when fetchType is STORE. ION, JSONL and CSV files are compressed as a whole; AVRO files compress their blocks with the matching container codec (deflate for GZIP) and keep the `.avro` extension."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Compression> compression = Property.ofValue(Compression.NONE);
+
+    @Schema(
+        title = "Stream rows as raw JSON",
+        description = "Only applies when fetchType is STORE without `chunking`. Rows are read as the raw JSON bytes returned by the query service instead of being decoded into maps: they are copied as is to a JSONL file, or transcoded token by token to ION, which saves most per-row allocations on large exports. CSV and AVRO still decode each row to read its columns."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Boolean> passthrough = Property.ofValue(false);
+
+    @Schema(
+        title = "Split a STORE scan in pages",
+        description = "Only applies when fetchType is STORE. The statement is run once per page with the page bounds as named parameters, each page being a short request written to its own file and retried on its own on failure. The statement must order by the chunking key and carry the bounds itself: `WHERE key > $lastKey ORDER BY key LIMIT $size` for KEYSET pages, `ORDER BY key LIMIT $size OFFSET $offset` for OFFSET pages."
+    )
+    @Valid
+    @PluginProperty(group = "execution")
+    protected Chunking chunking;
+
+    @Schema(
+        title = "Cache the result",
+        description = "Runs with the same connection, rendered statement, parameters and output options in the same tenant and namespace reuse the output of a previous run for `ttl`, without querying the cluster. The cache is held in memory by each worker. STORE results are cached as the URIs of their files, so keep `ttl` shorter than the internal storage retention. The cache is bypassed when `scanConsistency` or `consistentWith` is set, as those runs ask to read recent writes."
+    )
+    @Valid
+    @PluginProperty(group = "execution")
+    protected Cache cache;
+
     public Output run(RunContext runContext) throws Exception {
+        // a consistent read must see the latest writes, not a cached result
+        if (cache == null || scanConsistency != null || consistentWith != null) {
+            return execute(runContext);
+        }
+
+        ResultCache.Key cacheKey = cacheKey(runContext);
+        Optional<Output> cached = ResultCache.getInstance().get(cacheKey);
+        if (cached.isPresent()) {
+            runContext.metric(Counter.of("cache.hit", 1));
+            runContext.logger().debug("Reusing the cached result of '{}'", cacheKey.query());
+            return cached.get();
+        }
+
+        runContext.metric(Counter.of("cache.miss", 1));
+        Output output = execute(runContext);
+
+        ResultCache.getInstance().put(
+            cacheKey,
+            output,
+            runContext.render(cache.getTtl()).as(Duration.class).orElseThrow(),
+            runContext.render(cache.getMaxEntries()).as(Integer.class).orElseThrow()
+        );
+
+        return output;
+    }
+
+    private ResultCache.Key cacheKey(RunContext runContext) throws Exception {
+        List<Object> shape = List.of(
+            runContext.render(fetchType).as(FetchType.class).orElseThrow(),
+            runContext.render(outputFormat).as(OutputFormat.class).orElseThrow(),
+            runContext.render(compression).as(Compression.class).orElseThrow(),
+            runContext.render(profile).as(QueryProfile.class).orElseThrow(),
+            runContext.render(passthrough).as(Boolean.class).orElseThrow(),
+            chunking == null ? List.of() : List.of(
+                runContext.render(chunking.getSize()).as(Integer.class).orElseThrow(),
+                runContext.render(chunking.getKey()).as(String.class).orElseThrow(),
+                String.valueOf(chunking.getInitialKey()),
+                runContext.render(chunking.getMode()).as(ChunkingMode.class).orElseThrow(),
+                runContext.render(chunking.getMerge()).as(Boolean.class).orElseThrow()
+            )
+        );
+
+        String renderedUsername = runContext.render(username);
+
+        return new ResultCache.Key(
+            runContext.flowInfo().tenantId(),
+            runContext.flowInfo().namespace(),
+            runContext.render(connectionString),
+            renderedUsername,
+            ResultCache.credentials(renderedUsername, runContext.render(password)),
+            runContext.render(query),
+            JacksonMapper.ofJson().writeValueAsString(parameters),
+            shape.toString()
+        );
+    }
+
+    private Output execute(RunContext runContext) throws Exception {
+        long connectStart = System.nanoTime();
         Cluster session = connect(runContext);
+        runContext.metric(Timer.of("connect.duration", since(connectStart)));
 
-        String renderedQuery = runContext.render(query);
-        QueryOptions parametersForQuery = getParametersForQuery();
-        QueryResult result = session.query(renderedQuery, parametersForQuery);
+        try {
+            String renderedQuery = runContext.render(query);
+
+            QueryPreflight.Result preflightResult = preflight == null ? null : preflight(runContext, session, renderedQuery);
+
+            if (!runContext.render(adhoc).as(Boolean.class).orElseThrow()) {
+                boolean cached = PreparedStatementCache.getInstance().record(session, renderedQuery);
+                runContext.metric(Counter.of(cached ? "prepared.cache.hit.estimated" : "prepared.cache.miss.estimated", 1));
+            }
+
+            FetchType renderedFetchType = runContext.render(fetchType).as(FetchType.class).orElseThrow();
 
-        close(session);
+            Output output;
+            if (renderedFetchType == FetchType.STORE && chunking != null) {
+                output = storeChunks(runContext, session, renderedQuery);
+            } else if (renderedFetchType == FetchType.STORE) {
+                output = store(runContext, session, renderedQuery, queryOptions(runContext, Map.of()));
+            } else {
+                output = fetch(runContext, session, renderedQuery, queryOptions(runContext, Map.of()), renderedFetchType);
+            }
+
+            if (preflightResult == null || preflightResult.fullScans().isEmpty()) {
+                return output;
+            }
+
+            return output.toBuilder()
+                .fullScans(preflightResult.fullScans())
+                .recommendedIndexes(preflightResult.recommendedIndexes())
+                .build();
+        } finally {
+            close(session);
+        }
+    }
+
+    /**
+     * Explains the statement, failing before it runs or warning when its plan reads a whole keyspace or index.
+     */
+    private QueryPreflight.Result preflight(RunContext runContext, Cluster session, String renderedQuery) throws IllegalVariableEvaluationException {
+        long preflightStart = System.nanoTime();
+        QueryOptions explainOptions = getParametersForQuery();
+        runContext.render(queryTimeout).as(Duration.class).ifPresent(explainOptions::timeout);
+
+        QueryPreflight.Result result = QueryPreflight.check(
+            runContext,
+            session,
+            renderedQuery,
+            explainOptions,
+            runContext.render(preflight.getAdvise()).as(Boolean.class).orElseThrow()
+        );
+        runContext.metric(Timer.of("preflight.duration", since(preflightStart)));
+        runContext.metric(Counter.of("preflight.full.scans", result.fullScans().size()));
+
+        if (result.fullScans().isEmpty()) {
+            return result;
+        }
+
+        String message = "The plan of '" + renderedQuery + "' reads a whole keyspace or index: " + String.join(", ", result.fullScans())
+            + (result.recommendedIndexes().isEmpty() ? "" : ". Recommended indexes: " + String.join("; ", result.recommendedIndexes()));
+
+        if (runContext.render(preflight.getOnFullScan()).as(PreflightAction.class).orElseThrow() == PreflightAction.FAIL) {
+            throw new IllegalStateException(message);
+        }
+
+        runContext.logger().warn(message);
+        return result;
+    }
 
+    private Output fetch(RunContext runContext, Cluster session, String renderedQuery, QueryOptions parametersForQuery, FetchType renderedFetchType) {
+        long queryStart = System.nanoTime();
+        QueryResult result = session.query(renderedQuery, parametersForQuery);
+        runContext.metric(Timer.of("query.duration", since(queryStart)));
+
+        long decodeStart = System.nanoTime();
         List<Map<String, Object>> rowsAsMap = result.rowsAs(MAP_TYPE_REF);
+        runContext.metric(Timer.of("decode.duration", since(decodeStart)));
+        runContext.metric(Counter.of("records", rowsAsMap.size()));
 
         Output.OutputBuilder outputBuilder = Output.builder().size((long) rowsAsMap.size());
-        return (switch (runContext.render(fetchType).as(FetchType.class).orElseThrow()) {
+        serverMetrics(runContext, result.metaData(), outputBuilder);
+
+        return (switch (renderedFetchType) {
             case FETCH -> outputBuilder
                 .rows(rowsAsMap);
             case FETCH_ONE -> outputBuilder
                 .row(rowsAsMap.stream().findFirst().orElse(null));
-            case STORE -> {
-                File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
-                BufferedWriter fileWriter = new BufferedWriter(new FileWriter(tempFile));
-                try (OutputStream outputStream = new FileOutputStream(tempFile)) {
-                    rowsAsMap.forEach(row ->
-                    {
-                        try {
-                            FileSerde.write(outputStream, row);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-                    FileSerde.write(outputStream, rowsAsMap);
-                }
+            default -> outputBuilder;
+        }).build();
+    }
+
+    /**
+     * Streams rows from the reactive query API straight to the output file, so the result set is never held in memory.
+     * Rows are written off the IO event loop and upstream demand is bounded by {@link RowWriter#STORE_PREFETCH}. In passthrough
+     * mode, rows are never decoded and their raw JSON bytes go to the {@link RowWriter} as is.
+     */
+    @SuppressWarnings("unchecked")
+    private Output store(RunContext runContext, Cluster session, String renderedQuery, QueryOptions queryOptions) throws Exception {
+        OutputFormat renderedOutputFormat = runContext.render(outputFormat).as(OutputFormat.class).orElseThrow();
+        Compression renderedCompression = runContext.render(compression).as(Compression.class).orElseThrow();
+        boolean renderedPassthrough = runContext.render(passthrough).as(Boolean.class).orElseThrow();
+
+        File tempFile = runContext.workingDir().createTempFile(RowWriter.extension(renderedOutputFormat, renderedCompression)).toFile();
+        AtomicReference<QueryMetaData> metaData = new AtomicReference<>();
+        AtomicLong firstRow = new AtomicLong();
+
+        if (renderedPassthrough) {
+            queryOptions.raw("pretty", false);
+        }
+
+        long queryStart = System.nanoTime();
+        Long size;
+        try (RowWriter writer = RowWriter.of(renderedOutputFormat, renderedCompression, new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE))) {
+            Flux<?> rows = session.reactive()
+                .query(renderedQuery, queryOptions)
+                .flatMapMany(result -> (renderedPassthrough ? result.rowsAs(byte[].class) : result.rowsAs(MAP_TYPE_REF))
+                    .concatWith(result.metaData().doOnNext(metaData::set).then(Mono.empty()))
+                )
+                .doOnNext(row -> firstRow.compareAndSet(0, System.nanoTime()))
+                .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH);
+
+            size = rows
+                .doOnNext(throwConsumer(row -> {
+                    if (row instanceof byte[] raw) {
+                        writer.writeRaw(raw);
+                    } else {
+                        writer.write((Map<String, Object>) row);
+                    }
+                }))
+                .count()
+                .block();
+        }
+
+        if (firstRow.get() != 0) {
+            runContext.metric(Timer.of("query.duration", Duration.ofNanos(firstRow.get() - queryStart)));
+        }
+        runContext.metric(Timer.of("store.duration", since(queryStart)));
+        runContext.metric(Counter.of("records", size));
 
-                fileWriter.flush();
-                fileWriter.close();
+        long uploadStart = System.nanoTime();
+        URI uri = runContext.storage().putFile(tempFile);
+        runContext.metric(Timer.of("upload.duration", since(uploadStart)));
 
-                yield outputBuilder
-                    .uri(runContext.storage().putFile(tempFile));
+        Output.OutputBuilder outputBuilder = Output.builder()
+            .size(size)
+            .uri(uri);
+
+        if (metaData.get() != null) {
+            serverMetrics(runContext, metaData.get(), outputBuilder);
+        }
+
+        return outputBuilder.build();
+    }
+
+    /**
+     * Reports the server-side execution metrics and exposes the profile, when one was requested.
+     */
+    private static void serverMetrics(RunContext runContext, QueryMetaData metaData, Output.OutputBuilder outputBuilder) {
+        metaData.metrics().ifPresent(metrics -> {
+            runContext.metric(Timer.of("server.elapsed.duration", metrics.elapsedTime()));
+            runContext.metric(Timer.of("server.execution.duration", metrics.executionTime()));
+            runContext.metric(Counter.of("server.result.count", metrics.resultCount()));
+            runContext.metric(Counter.of("server.result.size", metrics.resultSize()));
+            runContext.metric(Counter.of("server.mutation.count", metrics.mutationCount()));
+        });
+
+        metaData.profile().ifPresent(profile -> outputBuilder.profile(profile.toMap()));
+    }
+
+    private static Duration since(long start) {
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    private Output storeChunks(RunContext runContext, Cluster session, String renderedQuery) throws Exception {
+        OutputFormat renderedOutputFormat = runContext.render(outputFormat).as(OutputFormat.class).orElseThrow();
+        Compression renderedCompression = runContext.render(compression).as(Compression.class).orElseThrow();
+        boolean renderedMerge = runContext.render(chunking.getMerge()).as(Boolean.class).orElseThrow();
+
+        if (renderedMerge && (renderedOutputFormat == OutputFormat.CSV || renderedOutputFormat == OutputFormat.AVRO)) {
+            throw new IllegalArgumentException("Chunked " + renderedOutputFormat + " pages cannot be merged, each page file has its own header");
+        }
+
+        QueryChunks chunks = new QueryChunks(
+            runContext,
+            session,
+            renderedQuery,
+            throwFunction(pageParameters -> queryOptions(runContext, pageParameters)),
+            runContext.render(chunking.getKey()).as(String.class).orElseThrow(),
+            runContext.render(chunking.getSize()).as(Integer.class).orElseThrow(),
+            runContext.render(chunking.getMaxRetries()).as(Integer.class).orElseThrow(),
+            renderedOutputFormat,
+            renderedCompression
+        );
+
+        List<QueryChunks.Page> pages = switch (runContext.render(chunking.getMode()).as(ChunkingMode.class).orElseThrow()) {
+            case KEYSET -> {
+                if (chunking.getInitialKey() == null) {
+                    throw new IllegalArgumentException("'chunking.initialKey' is required with KEYSET chunking");
+                }
+
+                yield chunks.keyset(chunking.getInitialKey());
             }
-            default -> outputBuilder;
-        }).build();
+            case OFFSET -> chunks.offset(runContext.render(chunking.getParallelism()).as(Integer.class).orElseThrow());
+        };
+
+        long size = pages.stream().mapToLong(QueryChunks.Page::count).sum();
+        runContext.logger().debug("Stored {} rows in {} pages", size, pages.size());
 
+        Output.OutputBuilder outputBuilder = Output.builder().size(size);
+        if (renderedMerge) {
+            return outputBuilder
+                .uri(runContext.storage().putFile(QueryChunks.merge(runContext, pages, RowWriter.extension(renderedOutputFormat, renderedCompression))))
+                .build();
+        }
+
+        return outputBuilder
+            .uris(QueryChunks.upload(runContext, pages))
+            .build();
+    }
+
+    /**
+     * Options of a statement run, with the page parameters of chunked runs added to the named parameters.
+     */
+    private QueryOptions queryOptions(RunContext runContext, Map<String, Object> pageParameters) throws IllegalVariableEvaluationException {
+        QueryOptions queryOptions = getParametersForQuery(pageParameters);
+        tune(runContext, queryOptions);
+
+        if (!runContext.render(adhoc).as(Boolean.class).orElseThrow()) {
+            queryOptions.adhoc(false);
+        }
+
+        queryOptions.metrics(true);
+        queryOptions.profile(runContext.render(profile).as(QueryProfile.class).orElseThrow());
+
+        return queryOptions;
     }
 
     private QueryOptions getParametersForQuery() {
+        return getParametersForQuery(Map.of());
+    }
+
+    private QueryOptions getParametersForQuery(Map<String, Object> pageParameters) {
         QueryOptions queryOptions = QueryOptions.queryOptions();
 
-        if (parameters instanceof Map) {
+        if (!pageParameters.isEmpty()) {
+            if (parameters instanceof List) {
+                throw new IllegalArgumentException("Chunking passes the page bounds as named parameters, 'parameters' must be named too");
+            }
+
+            Map<String, Object> named = parameters == null ? new HashMap<>() : new HashMap<>((Map<String, Object>) parameters);
+            named.putAll(pageParameters);
+            queryOptions.parameters(JsonObject.from(named));
+        } else if (parameters instanceof Map) {
             queryOptions.parameters(JsonObject.from((Map<String, ?>) parameters));
         } else if (parameters instanceof List) {
             queryOptions.parameters(JsonArray.from((List<?>) parameters));
@@ -128,7 +632,185 @@ public class Query extends CouchbaseConnection implements RunnableTask<Query.Out
         return queryOptions;
     }
 
+    /**
+     * Applies the server-side execution controls that are set, leaving the others to the query service defaults.
+     */
+    private void tune(RunContext runContext, QueryOptions queryOptions) throws IllegalVariableEvaluationException {
+        runContext.render(scanConsistency).as(ScanConsistency.class).ifPresent(throwConsumer(consistency -> {
+            switch (consistency) {
+                case NOT_BOUNDED -> queryOptions.scanConsistency(QueryScanConsistency.NOT_BOUNDED);
+                case REQUEST_PLUS -> queryOptions.scanConsistency(QueryScanConsistency.REQUEST_PLUS);
+                case AT_PLUS -> {
+                    Map<String, Object> mutationState = runContext.render(consistentWith).asMap(String.class, Object.class);
+                    if (mutationState.isEmpty()) {
+                        throw new IllegalArgumentException("'consistentWith' is required with AT_PLUS scan consistency");
+                    }
+
+                    queryOptions.consistentWith(MutationState.from(JsonObject.from(mutationState)));
+                }
+            }
+        }));
+
+        runContext.render(queryTimeout).as(Duration.class).ifPresent(queryOptions::timeout);
+        runContext.render(maxParallelism).as(Integer.class).ifPresent(queryOptions::maxParallelism);
+        runContext.render(pipelineBatch).as(Integer.class).ifPresent(queryOptions::pipelineBatch);
+        runContext.render(pipelineCap).as(Integer.class).ifPresent(queryOptions::pipelineCap);
+        runContext.render(scanCap).as(Integer.class).ifPresent(queryOptions::scanCap);
+        runContext.render(readonly).as(Boolean.class).ifPresent(queryOptions::readonly);
+        runContext.render(flexIndex).as(Boolean.class).ifPresent(queryOptions::flexIndex);
+    }
+
+    public enum OutputFormat {
+        ION(".ion"),
+        JSONL(".jsonl"),
+        CSV(".csv"),
+        AVRO(".avro");
+
+        private final String extension;
+
+        OutputFormat(String extension) {
+            this.extension = extension;
+        }
+
+        String extension() {
+            return extension;
+        }
+    }
+
+    public enum Compression {
+        NONE(""),
+        GZIP(".gz"),
+        ZSTD(".zst");
+
+        private final String extension;
+
+        Compression(String extension) {
+            this.extension = extension;
+        }
+
+        String extension() {
+            return extension;
+        }
+    }
+
+    public enum ChunkingMode {
+        KEYSET,
+        OFFSET
+    }
+
+    public enum PreflightAction {
+        FAIL,
+        WARN
+    }
+
+    @Value
     @Builder
+    @Jacksonized
+    public static class Chunking {
+        @Schema(
+            title = "Rows per page"
+        )
+        @NotNull
+        @PluginProperty
+        Property<Integer> size;
+
+        @Schema(
+            title = "Ordering key",
+            description = "Top-level field of the returned rows the statement orders by; its value in the last row of a page is passed as `$lastKey` to the next KEYSET page, so it must be unique and never null."
+        )
+        @NotNull
+        @PluginProperty
+        Property<String> key;
+
+        @Schema(
+            title = "Key before the first page",
+            description = "Passed as `$lastKey` to the first KEYSET page, so it must sort before every key: e.g. `\"\"` for string keys or a negative number for numeric ones. Required with KEYSET."
+        )
+        @PluginProperty
+        Object initialKey;
+
+        @Schema(
+            title = "Pagination strategy",
+            description = "KEYSET reads each page after the last key of the previous one; with an index on the key, each page is a short range scan however deep it is, but pages run sequentially. OFFSET lets pages run in parallel, but the query service still reads and skips every row before the offset, so deep pages get slower."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<ChunkingMode> mode = Property.ofValue(ChunkingMode.KEYSET);
+
+        @Schema(
+            title = "Number of pages fetched concurrently",
+            description = "Only used by OFFSET pagination."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<Integer> parallelism = Property.ofValue(1);
+
+        @Schema(
+            title = "Retries of a failed page",
+            description = "Only timeouts and temporary failures are retried, other errors fail the task."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<Integer> maxRetries = Property.ofValue(3);
+
+        @Schema(
+            title = "Merge pages in a single file",
+            description = "When false, each page is stored as its own file listed in `uris`, ready for a downstream `ForEach` or `ForEachItem`; when true, pages are concatenated in order into `uri`. Merging is not supported for the CSV and AVRO output formats."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<Boolean> merge = Property.ofValue(false);
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Cache {
+        @Schema(
+            title = "Time a cached result is reused"
+        )
+        @NotNull
+        @PluginProperty
+        Property<Duration> ttl;
+
+        @Schema(
+            title = "Maximum number of cached results",
+            description = "The least recently used results are evicted beyond it."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<Integer> maxEntries = Property.ofValue(1000);
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Preflight {
+        @Schema(
+            title = "What to do when the plan reads a whole keyspace or index",
+            description = "FAIL stops the run before the statement is sent; WARN logs the full scans and runs the statement."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<PreflightAction> onFullScan = Property.ofValue(PreflightAction.FAIL);
+
+        @Schema(
+            title = "Ask the query service for index recommendations",
+            description = "When the plan has a full scan, runs `ADVISE` on the statement and reports the recommended `CREATE INDEX` statements."
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<Boolean> advise = Property.ofValue(true);
+    }
+
+    @Builder(toBuilder = true)
     @Getter
     public static class Output implements io.kestra.core.models.tasks.Output {
         @Schema(
@@ -149,6 +831,30 @@ public class Query extends CouchbaseConnection implements RunnableTask<Query.Out
         )
         private URI uri;
 
+        @Schema(
+            title = "Stored page URIs",
+            description = "Present when STORE runs with `chunking` and pages are not merged; one Kestra internal storage object per page, in order."
+        )
+        private List<URI> uris;
+
+        @Schema(
+            title = "Server-side query profile",
+            description = "Present when `profile` is PHASES or TIMINGS; the execution profile returned by the query service."
+        )
+        private Map<String, Object> profile;
+
+        @Schema(
+            title = "Full scans of the query plan",
+            description = "Present when `preflight` found primary scans or unbounded index scans in the plan and let the statement run."
+        )
+        private List<String> fullScans;
+
+        @Schema(
+            title = "Recommended index definitions",
+            description = "`CREATE INDEX` statements recommended by `ADVISE` to avoid the full scans, when `preflight` advice is enabled."
+        )
+        private List<String> recommendedIndexes;
+
         @Schema(
             title = "Number of rows returned",
             description = "Set when fetchType is FETCH or STORE; useful for branching or triggers."
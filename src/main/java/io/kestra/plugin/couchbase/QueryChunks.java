@@ -0,0 +1,219 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import com.couchbase.client.core.error.RequestCanceledException;
+import com.couchbase.client.core.error.TemporaryFailureException;
+import com.couchbase.client.core.error.TimeoutException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.codec.TypeRef;
+import com.couchbase.client.java.query.QueryOptions;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+/**
+ * Splits the scan of a {@link Query} statement in pages of bounded size, each page being a short request written to its own file.
+ * <p>
+ * The statement carries its own ordering and page bounds, read from named parameters, so the query service can push them
+ * down to an index on the key. KEYSET pages get the last key of the previous page as {@code $lastKey} and run one after the
+ * other; OFFSET pages get their {@code $offset}, are independent and run concurrently. Both get the page size as
+ * {@code $size}. A failed page is retried on its own.
+ */
+final class QueryChunks {
+    private static final TypeRef<Map<String, Object>> MAP_TYPE_REF = new TypeRef<>() {
+    };
+
+    static final String LAST_KEY = "lastKey";
+    static final String SIZE = "size";
+    static final String OFFSET = "offset";
+
+    private final RunContext runContext;
+    private final Cluster session;
+    private final String statement;
+    private final Function<Map<String, Object>, QueryOptions> pageOptions;
+    private final String key;
+    private final int size;
+    private final int maxRetries;
+    private final Query.OutputFormat outputFormat;
+    private final Query.Compression compression;
+
+    QueryChunks(RunContext runContext, Cluster session, String statement, Function<Map<String, Object>, QueryOptions> pageOptions, String key, int size, int maxRetries, Query.OutputFormat outputFormat, Query.Compression compression) {
+        this.runContext = runContext;
+        this.session = session;
+        this.statement = statement;
+        this.pageOptions = pageOptions;
+        this.key = key;
+        this.size = size;
+        this.maxRetries = maxRetries;
+        this.outputFormat = outputFormat;
+        this.compression = compression;
+    }
+
+    List<Page> keyset(Object initialKey) {
+        requireParameters(LAST_KEY, "WHERE key > $lastKey ORDER BY key LIMIT $size");
+
+        List<Page> pages = new ArrayList<>();
+
+        Object lastKey = initialKey;
+        Page page;
+        do {
+            page = fetch(pages.size(), Map.of(LAST_KEY, lastKey, SIZE, size)).block();
+
+            if (page.count() > 0 || pages.isEmpty()) {
+                pages.add(page);
+            }
+
+            if (page.count() == size && lastKey.equals(page.lastKey())) {
+                throw new IllegalStateException("Chunking key '" + key + "' did not advance past " + lastKey + ", the statement must filter on `$lastKey` and order by the key");
+            }
+            lastKey = page.lastKey();
+        } while (page.count() == size);
+
+        return pages;
+    }
+
+    List<Page> offset(int parallelism) {
+        requireParameters(OFFSET, "ORDER BY key LIMIT $size OFFSET $offset");
+
+        List<Page> pages = Flux.range(0, Integer.MAX_VALUE)
+            .flatMapSequential(index -> fetch(index, Map.of(SIZE, size, OFFSET, (long) index * size)), parallelism, 1)
+            .takeUntil(page -> page.count() < size)
+            // pages completed past the last one are dropped by takeUntil
+            .doOnDiscard(Page.class, page -> delete(page.file()))
+            .collectList()
+            .block();
+
+        // keep a single empty page when the result is empty, drop the trailing one otherwise
+        if (pages.size() > 1 && pages.getLast().count() == 0) {
+            pages.removeLast();
+        }
+
+        return pages;
+    }
+
+    /**
+     * Fails before the first page when the statement does not use the page parameters: it would return the same rows on
+     * every page, or never stop.
+     */
+    private void requireParameters(String bound, String example) {
+        if (!statement.contains("$" + bound) || !statement.contains("$" + SIZE)) {
+            throw new IllegalArgumentException("Chunked statements must carry their page bounds as `$" + bound + "` and `$" + SIZE + "`, e.g. `" + example + "`");
+        }
+    }
+
+    /**
+     * Concatenates the pages in order: ion and JSON lines files are streams of top-level values, and concatenated gzip
+     * members or zstd frames still form a valid compressed file.
+     */
+    static File merge(RunContext runContext, List<Page> pages, String extension) throws IOException {
+        File merged = runContext.workingDir().createTempFile(extension).toFile();
+
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(merged), FileSerde.BUFFER_SIZE)) {
+            for (Page page : pages) {
+                Files.copy(page.file().toPath(), output);
+            }
+        }
+
+        return merged;
+    }
+
+    static List<URI> upload(RunContext runContext, List<Page> pages) throws IOException {
+        List<URI> uris = new ArrayList<>();
+        for (Page page : pages) {
+            uris.add(runContext.storage().putFile(page.file()));
+        }
+
+        return uris;
+    }
+
+    private Mono<Page> fetch(int index, Map<String, Object> pageParameters) {
+        return Mono
+            .defer(() -> {
+                try {
+                    File file = runContext.workingDir().createTempFile(RowWriter.extension(outputFormat, compression)).toFile();
+                    AtomicReference<Object> lastKey = new AtomicReference<>();
+
+                    RowWriter writer = RowWriter.of(outputFormat, compression, new BufferedOutputStream(new FileOutputStream(file), FileSerde.BUFFER_SIZE));
+                    Flux<Map<String, Object>> rows = session.reactive()
+                        .query(statement, pageOptions.apply(pageParameters))
+                        .flatMapMany(result -> result.rowsAs(MAP_TYPE_REF))
+                        .publishOn(Schedulers.boundedElastic())
+                        .doOnNext(row -> lastKey.set(keyOf(row)))
+                        .doOnNext(throwConsumer(writer::write));
+
+                    // the page is emitted once its file is flushed and closed, so it can be merged or uploaded right away
+                    AtomicBoolean emitted = new AtomicBoolean(false);
+                    return rows.count()
+                        .flatMap(count -> Mono.fromCallable(() -> {
+                            writer.close();
+                            emitted.set(true);
+                            return new Page(index, file, count, lastKey.get());
+                        }))
+                        // failed pages, and speculative OFFSET pages cancelled once the last one is known, leave nothing behind
+                        .doFinally(signal -> {
+                            if (!emitted.get()) {
+                                discard(writer, file);
+                            }
+                        });
+                } catch (IOException e) {
+                    return Mono.error(e);
+                }
+            })
+            .doOnError(e -> runContext.logger().warn("Page {} failed: {}", index, e.getMessage()))
+            .retryWhen(Retry.max(maxRetries).filter(QueryChunks::isTransient));
+    }
+
+    private void discard(RowWriter writer, File file) {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            runContext.logger().warn("Unable to close page file '{}'", file, e);
+        }
+
+        delete(file);
+    }
+
+    private void delete(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            runContext.logger().warn("Unable to delete page file '{}'", file, e);
+        }
+    }
+
+    /**
+     * Failures a new attempt of the page can get past; a bad statement or a missing key fails the same way again.
+     */
+    private static boolean isTransient(Throwable error) {
+        return error instanceof TimeoutException
+            || error instanceof TemporaryFailureException
+            || error instanceof RequestCanceledException;
+    }
+
+    private Object keyOf(Map<String, Object> row) {
+        if (row.get(key) == null) {
+            throw new IllegalArgumentException("Chunking key '" + key + "' is missing or null in row " + row);
+        }
+
+        return row.get(key);
+    }
+
+    record Page(int index, File file, long count, Object lastKey) {
+    }
+}
@@ -1,7 +1,10 @@
 package io.kestra.plugin.couchbase;
 
+import java.time.Duration;
 import java.util.Map;
 
+import com.couchbase.client.java.query.QueryProfile;
+
 import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.common.FetchType;
@@ -41,4 +44,94 @@ public interface QueryInterface {
     )
     @PluginProperty(group = "execution")
     Property<FetchType> getFetchType();
+
+    @Schema(
+        title = "Run the statement as ad hoc",
+        description = "Defaults to true. When false, the statement is prepared once and its plan is reused by later executions of the same rendered statement, including across runs and trigger polls, skipping parsing and planning on the query service. Prepared statements should use parameters rather than inlined values."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Boolean> getAdhoc();
+
+    @Schema(
+        title = "Server-side profiling",
+        description = "Defaults to OFF. PHASES or TIMINGS make the query service return an execution profile, exposed in the `profile` output; per-phase durations and server metrics are always reported as task metrics."
+    )
+    @PluginProperty(group = "advanced")
+    Property<QueryProfile> getProfile();
+
+    @Schema(
+        title = "Scan consistency",
+        description = "Defaults to NOT_BOUNDED, the fastest, which reads indexes as they are. REQUEST_PLUS waits for indexes to catch up with every mutation made before the request; AT_PLUS only waits for the mutations of `consistentWith`."
+    )
+    @PluginProperty(group = "execution")
+    Property<ScanConsistency> getScanConsistency();
+
+    @Schema(
+        title = "Mutation state to be consistent with",
+        description = "Required by AT_PLUS scan consistency: an exported mutation state, such as the `mutationState` output of a `Load` task, mapping each bucket to its partition sequence numbers."
+    )
+    @PluginProperty(group = "execution")
+    Property<Map<String, Object>> getConsistentWith();
+
+    @Schema(
+        title = "Query timeout",
+        description = "Defaults to the cluster environment query timeout. Unlike the task `timeout`, it is enforced by the SDK and the query service, which cancel the request."
+    )
+    @PluginProperty(group = "execution")
+    Property<Duration> getQueryTimeout();
+
+    @Schema(
+        title = "Maximum parallelism of the query execution",
+        description = "Defaults to the query service setting; raise it to spread large scans over more cores."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Integer> getMaxParallelism();
+
+    @Schema(
+        title = "Items the query service fetches from the data service per batch",
+        description = "Defaults to the query service setting."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Integer> getPipelineBatch();
+
+    @Schema(
+        title = "Maximum items each query operator buffers",
+        description = "Defaults to the query service setting."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Integer> getPipelineCap();
+
+    @Schema(
+        title = "Maximum buffered channel size between the indexer and the query service",
+        description = "Defaults to the query service setting."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Integer> getScanCap();
+
+    @Schema(
+        title = "Reject statements that modify data",
+        description = "When true, the query service refuses DML and DDL statements, and read-only statements can be retried safely."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Boolean> getReadonly();
+
+    @Schema(
+        title = "Let the query service use full-text search indexes",
+        description = "When true, the planner may use Flex Index, answering the predicates with a search index."
+    )
+    @PluginProperty(group = "advanced")
+    Property<Boolean> getFlexIndex();
+
+    @Schema(
+        title = "Check the query plan before running the statement",
+        description = "Runs `EXPLAIN` on the rendered statement first and looks for primary scans and unbounded index scans, which read a whole keyspace or index. Depending on `onFullScan`, a full scan fails the run before the statement is sent, or is logged as a warning; the full scans and the index definitions recommended by `ADVISE` are exposed in the `fullScans` and `recommendedIndexes` outputs."
+    )
+    @PluginProperty(group = "execution")
+    Query.Preflight getPreflight();
+
+    enum ScanConsistency {
+        NOT_BOUNDED,
+        REQUEST_PLUS,
+        AT_PLUS
+    }
 }
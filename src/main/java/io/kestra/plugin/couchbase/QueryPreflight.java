@@ -0,0 +1,118 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.*;
+
+import com.couchbase.client.core.error.CouchbaseException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.query.QueryOptions;
+
+import io.kestra.core.runners.RunContext;
+
+/**
+ * Checks the plan of a {@link Query} statement before it runs, to catch the statements that would read a whole keyspace.
+ * <p>
+ * The statement is sent with {@code EXPLAIN} and its plan is walked for primary scans and for index scans without bounds,
+ * both reading every entry of their index. When one is found and advice is enabled, the statement is sent again with
+ * {@code ADVISE} to collect the indexes the query service recommends. Both are best effort: a statement that cannot be explained,
+ * such as DDL, is run unchecked, and a statement that cannot be advised on gets no recommendation.
+ */
+final class QueryPreflight {
+    // low bounds that still match every indexed entry, "null" standing for an absent bound too
+    private static final Set<String> SENTINELS = Set.of("null", "missing");
+
+    private QueryPreflight() {
+    }
+
+    static Result check(RunContext runContext, Cluster session, String statement, QueryOptions queryOptions, boolean advise) {
+        List<String> fullScans = new ArrayList<>();
+        try {
+            session.query("EXPLAIN " + statement, queryOptions)
+                .rowsAs(Query.MAP_TYPE_REF)
+                .forEach(row -> fullScans(row, fullScans));
+        } catch (CouchbaseException e) {
+            // DDL and a few other statements have no plan to check
+            runContext.logger().warn("Unable to explain '{}', skipping the pre-flight check: {}", statement, e.getMessage());
+            return new Result(List.of(), List.of());
+        }
+
+        if (fullScans.isEmpty() || !advise) {
+            return new Result(fullScans, List.of());
+        }
+
+        Set<String> recommendedIndexes = new LinkedHashSet<>();
+        try {
+            session.query("ADVISE " + statement, queryOptions)
+                .rowsAs(Query.MAP_TYPE_REF)
+                .forEach(row -> recommendedIndexes(row, false, recommendedIndexes));
+        } catch (CouchbaseException e) {
+            runContext.logger().warn("Unable to get index advice for '{}': {}", statement, e.getMessage());
+        }
+
+        return new Result(fullScans, new ArrayList<>(recommendedIndexes));
+    }
+
+    /**
+     * Collects the operators reading a whole index, anywhere in the plan: under sequences, parallels, unions and subqueries.
+     */
+    static void fullScans(Object node, List<String> found) {
+        if (node instanceof Map<?, ?> map) {
+            if (map.get("#operator") instanceof String operator) {
+                if (operator.startsWith("PrimaryScan")) {
+                    found.add(operator + " on " + keyspace(map));
+                } else if (operator.startsWith("IndexScan") && unbounded(map.get("spans"))) {
+                    found.add(operator + " on " + keyspace(map) + " using `" + map.get("index") + "` without bounds");
+                }
+            }
+
+            map.values().forEach(value -> fullScans(value, found));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> fullScans(value, found));
+        }
+    }
+
+    /**
+     * Whether index spans leave the scan unbounded: no span at all, or only spans whose ranges have no high bound and at most
+     * the null or missing sentinel as low bound, as planned for {@code IS NOT NULL} or {@code IS NOT MISSING} on the index keys.
+     */
+    private static boolean unbounded(Object spans) {
+        if (!(spans instanceof List<?> list) || list.isEmpty()) {
+            return true;
+        }
+
+        return list.stream().allMatch(span -> {
+            if (!(span instanceof Map<?, ?> map) || !(map.get("range") instanceof List<?> ranges) || ranges.isEmpty()) {
+                return true;
+            }
+
+            return ranges.stream().allMatch(range -> range instanceof Map<?, ?> bounds && bounds.get("high") == null && SENTINELS.contains(String.valueOf(bounds.get("low"))));
+        });
+    }
+
+    private static String keyspace(Map<?, ?> operator) {
+        // plans on a collection name its bucket and scope apart from the keyspace
+        if (operator.get("bucket") != null) {
+            return "`" + operator.get("bucket") + "`.`" + operator.get("scope") + "`.`" + operator.get("keyspace") + "`";
+        }
+
+        return "`" + operator.get("keyspace") + "`";
+    }
+
+    /**
+     * Collects the {@code CREATE INDEX} statements of the recommended indexes, covering ones included, leaving out the indexes
+     * the plan already uses.
+     */
+    private static void recommendedIndexes(Object node, boolean recommended, Set<String> found) {
+        if (node instanceof Map<?, ?> map) {
+            if (recommended && map.get("index_statement") instanceof String statement) {
+                found.add(statement);
+            }
+
+            map.forEach((key, value) -> recommendedIndexes(value, recommended || "recommended_indexes".equals(key), found));
+        } else if (node instanceof List<?> list) {
+            list.forEach(value -> recommendedIndexes(value, recommended, found));
+        }
+    }
+
+    record Result(List<String> fullScans, List<String> recommendedIndexes) {
+    }
+}
@@ -0,0 +1,359 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.reactivestreams.Publisher;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.conditions.ConditionContext;
+import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.triggers.*;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.JacksonMapper;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Start a flow for each change of a Couchbase collection",
+    description = "Consumes document mutations, deletions and expirations in real time through the Database Change Protocol (DCP), without polling the query service. Changes are grouped in micro-batches of up to `batchSize` changes, one execution per batch, and the position of each vBucket is checkpointed in the flow namespace KV store so the stream resumes where it stopped after a restart."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Start one execution per document change of a collection",
+            full = true,
+            code = """
+                id: couchbase_realtime
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.changes[0].type }} of {{ trigger.changes[0].id }}"
+
+                triggers:
+                  - id: changes
+                    type: io.kestra.plugin.couchbase.RealtimeTrigger
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    scope: my_scope
+                    collection: my_collection
+                """
+        ),
+        @Example(
+            title = "Process changes by micro-batches of up to 500 documents",
+            full = true,
+            code = """
+                id: couchbase_realtime_batch
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.size }} changes"
+
+                triggers:
+                  - id: changes
+                    type: io.kestra.plugin.couchbase.RealtimeTrigger
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    batchSize: 500
+                    batchDuration: PT5S
+                """
+        )
+    }
+)
+public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerInterface, TriggerOutput<RealtimeTrigger.Output>, CouchbaseConnectionInterface, CouchbaseCollectionInterface {
+    private static final String CHECKPOINT_STATE = "checkpoints";
+    private static final Duration STOP_POLL_INTERVAL = Duration.ofMillis(500);
+
+    @NotNull
+    @NotBlank
+    protected String connectionString;
+
+    @NotNull
+    @NotBlank
+    @PluginProperty(secret = true, dynamic = true, group = "connection")
+    protected String username;
+
+    @NotNull
+    @NotBlank
+    @ToString.Exclude
+    @PluginProperty(secret = true, dynamic = true, group = "connection")
+    protected String password;
+
+    @Schema(
+        title = "Cluster environment settings",
+        description = "The change stream has its own connection: only `timeout.connectTimeout` applies to it, as the bootstrap timeout."
+    )
+    @Valid
+    protected ClusterEnvironmentConfig environment;
+
+    @NotNull
+    protected Property<String> bucket;
+
+    @Schema(
+        title = "Scope to watch",
+        description = "Defaults to `_default` when `collection` is set; when both are unset, every collection of the bucket is watched."
+    )
+    protected Property<String> scope;
+
+    @Schema(
+        title = "Collection to watch",
+        description = "When unset, every collection of the bucket is watched."
+    )
+    protected Property<String> collection;
+
+    @Schema(
+        title = "Where to start when no checkpoint exists",
+        description = "NOW only streams changes made after the trigger starts, BEGINNING replays the current state of every document first."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<ChangeFeed.StartFrom> startFrom = Property.ofValue(ChangeFeed.StartFrom.NOW);
+
+    @Schema(
+        title = "Maximum number of changes per execution",
+        description = "Defaults to 1, creating one execution per change."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Integer> batchSize = Property.ofValue(1);
+
+    @Schema(
+        title = "Maximum time to wait to fill a batch",
+        description = "A batch is emitted once it reaches `batchSize` changes or after this duration, whichever comes first."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Duration> batchDuration = Property.ofValue(Duration.ofSeconds(1));
+
+    @Schema(
+        title = "Include deletions and expirations",
+        description = "When false, only mutations start executions."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Boolean> includeDeletions = Property.ofValue(true);
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean isActive = new AtomicBoolean(true);
+
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    private final CountDownLatch waitForTermination = new CountDownLatch(1);
+
+    @Override
+    public Publisher<Execution> evaluate(ConditionContext conditionContext, TriggerContext context) throws Exception {
+        RunContext runContext = conditionContext.getRunContext();
+
+        return outputs(runContext, changeFeed(runContext))
+            .map(output -> TriggerService.generateRealtimeExecution(this, conditionContext, context, output));
+    }
+
+    private ChangeFeed changeFeed(RunContext runContext) throws Exception {
+        String renderedCollection = runContext.render(collection).as(String.class).orElse(null);
+        String renderedScope = runContext.render(scope).as(String.class).orElse(renderedCollection == null ? null : "_default");
+
+        List<String> collections = new ArrayList<>();
+        if (renderedCollection != null) {
+            collections.add(renderedScope + "." + renderedCollection);
+        } else if (renderedScope != null) {
+            throw new IllegalArgumentException("'collection' is required when 'scope' is set");
+        }
+
+        ClusterEnvironmentConfig.Rendered renderedEnvironment = environment == null ? ClusterEnvironmentConfig.Rendered.DEFAULT : environment.render(runContext);
+
+        return new DcpChangeFeed(
+            runContext.render(connectionString),
+            runContext.render(username),
+            runContext.render(password),
+            runContext.render(bucket).as(String.class).orElseThrow(),
+            collections,
+            renderedEnvironment.connectTimeout()
+        );
+    }
+
+    /**
+     * Groups the changes of the feed in micro-batches, checkpointing the position of every partition once its batch has been
+     * handed downstream: the checkpoints of a batch are saved when the next batch is processed, or when the stream ends.
+     * Delivery is at-least-once, a stop between the emission of a batch and its checkpoint replays the batch on restart.
+     * Batches made only of filtered out changes still advance the checkpoints but do not start an execution.
+     */
+    Flux<Output> outputs(RunContext runContext, ChangeFeed feed) throws Exception {
+        ChangeFeed.StartFrom renderedStartFrom = runContext.render(startFrom).as(ChangeFeed.StartFrom.class).orElseThrow();
+        int renderedBatchSize = runContext.render(batchSize).as(Integer.class).orElseThrow();
+        Duration renderedBatchDuration = runContext.render(batchDuration).as(Duration.class).orElseThrow();
+        boolean renderedIncludeDeletions = runContext.render(includeDeletions).as(Boolean.class).orElseThrow();
+
+        Map<Integer, ChangeFeed.Checkpoint> checkpoints = readCheckpoints(runContext);
+        if (!checkpoints.isEmpty()) {
+            runContext.logger().info("Resuming change stream of {} partitions from checkpoints", checkpoints.size());
+        }
+
+        AtomicBoolean emitted = new AtomicBoolean(false);
+
+        return feed.stream(checkpoints, renderedStartFrom)
+            .takeUntilOther(Flux.interval(STOP_POLL_INTERVAL).filter(tick -> !isActive.get()))
+            .bufferTimeout(renderedBatchSize, renderedBatchDuration)
+            .concatMap(batch -> Mono.fromCallable(() -> {
+                // the previous batch has been handed downstream by now
+                if (emitted.getAndSet(false)) {
+                    writeCheckpoints(runContext, checkpoints);
+                }
+
+                batch.forEach(change -> checkpoints.put(change.partition(), change.checkpoint()));
+
+                List<Map<String, Object>> changes = batch.stream()
+                    .filter(change -> renderedIncludeDeletions || change.type() == ChangeFeed.ChangeType.MUTATION)
+                    .map(RealtimeTrigger::toMap)
+                    .toList();
+
+                if (changes.isEmpty()) {
+                    writeCheckpoints(runContext, checkpoints);
+                    return null;
+                }
+
+                emitted.set(true);
+                return Output.builder()
+                    .changes(changes)
+                    .size((long) changes.size())
+                    .build();
+            }))
+            .doFinally(signal -> {
+                try {
+                    if (emitted.get()) {
+                        writeCheckpoints(runContext, checkpoints);
+                    }
+                } catch (Exception e) {
+                    runContext.logger().warn("Unable to save the change stream checkpoints, the last batch will be replayed", e);
+                } finally {
+                    feed.close();
+                    waitForTermination.countDown();
+                }
+            });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, ChangeFeed.Checkpoint> readCheckpoints(RunContext runContext) throws Exception {
+        Map<Integer, ChangeFeed.Checkpoint> checkpoints = new HashMap<>();
+
+        TriggerState.get(runContext, id, CHECKPOINT_STATE).ifPresent(stored -> ((Map<String, Map<String, Number>>) stored)
+            .forEach((partition, checkpoint) -> checkpoints.put(Integer.valueOf(partition), new ChangeFeed.Checkpoint(
+                checkpoint.get("vbuuid").longValue(),
+                checkpoint.get("seqno").longValue(),
+                checkpoint.get("snapshotStart").longValue(),
+                checkpoint.get("snapshotEnd").longValue(),
+                checkpoint.get("collectionsManifestUid").longValue()
+            )))
+        );
+
+        return checkpoints;
+    }
+
+    private void writeCheckpoints(RunContext runContext, Map<Integer, ChangeFeed.Checkpoint> checkpoints) throws Exception {
+        Map<String, Object> stored = new HashMap<>();
+        checkpoints.forEach((partition, checkpoint) -> stored.put(String.valueOf(partition), Map.of(
+            "vbuuid", checkpoint.vbuuid(),
+            "seqno", checkpoint.seqno(),
+            "snapshotStart", checkpoint.snapshotStart(),
+            "snapshotEnd", checkpoint.snapshotEnd(),
+            "collectionsManifestUid", checkpoint.collectionsManifestUid()
+        )));
+
+        TriggerState.put(runContext, id, CHECKPOINT_STATE, stored);
+    }
+
+    private static Map<String, Object> toMap(ChangeFeed.Change change) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", change.id());
+        map.put("type", change.type().name());
+        map.put("cas", change.cas());
+        map.put("collection", change.collection());
+        map.put("partition", change.partition());
+        map.put("seqno", change.checkpoint().seqno());
+        map.put("content", content(change.content()));
+        return map;
+    }
+
+    private static Object content(byte[] content) {
+        if (content == null) {
+            return null;
+        }
+
+        try {
+            return JacksonMapper.ofJson().readValue(content, Object.class);
+        } catch (Exception e) {
+            // binary documents are not decoded
+            return null;
+        }
+    }
+
+    public void kill() {
+        stop(true);
+    }
+
+    public void stop() {
+        stop(false);
+    }
+
+    private void stop(boolean wait) {
+        if (!isActive.compareAndSet(true, false)) {
+            return;
+        }
+
+        if (wait) {
+            try {
+                this.waitForTermination.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Changes of the batch",
+            description = "Each change holds the document `id`, the change `type` (MUTATION, DELETION or EXPIRATION), its `cas`, `collection`, `partition` and `seqno`, and the JSON `content` for mutations."
+        )
+        private List<Map<String, Object>> changes;
+
+        @Schema(
+            title = "Number of changes in the batch"
+        )
+        private Long size;
+    }
+}
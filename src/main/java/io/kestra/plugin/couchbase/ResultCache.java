@@ -0,0 +1,83 @@
+package io.kestra.plugin.couchbase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+
+/**
+ * Process-wide cache of {@link Query} outputs, shared by every task run of the plugin.
+ * <p>
+ * Outputs are keyed by the tenant and namespace, the connection, the rendered statement and parameters, and the options shaping the
+ * output. An entry expires after the time-to-live of the task that stored it, and the least recently used entries are evicted
+ * once the cache holds more than the max entries of the task storing a new one. STORE outputs are cached with their internal
+ * storage URIs, the files themselves are not copied.
+ */
+final class ResultCache {
+    private static final ResultCache INSTANCE = new ResultCache();
+
+    // access-ordered, so iteration starts with the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    static ResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    synchronized Optional<Query.Output> get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        if (entry.expiresAt().isBefore(Instant.now())) {
+            entries.remove(key);
+            return Optional.empty();
+        }
+
+        return Optional.of(entry.output());
+    }
+
+    synchronized void put(Key key, Query.Output output, Duration ttl, int maxEntries) {
+        entries.put(key, new Entry(output, Instant.now().plus(ttl)));
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * SHA-256 of the credentials, so a key can tell users apart without keeping their password in memory.
+     */
+    static String credentials(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((username + "\u0000" + password).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Everything a cached output depends on, credentials being hashed with {@link #credentials(String, String)}.
+     */
+    record Key(String tenantId, String namespace, String connectionString, String username, String credentials, String query, String parameters, String shape) {
+        @Override
+        public String toString() {
+            return username + "@" + connectionString + " " + query;
+        }
+    }
+
+    private record Entry(Query.Output output, Instant expiresAt) {
+    }
+}
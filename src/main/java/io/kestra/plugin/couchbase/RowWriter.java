@@ -0,0 +1,420 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+
+import com.amazon.ion.IonWriter;
+import com.amazon.ion.system.IonTextWriterBuilder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.ion.IonFactory;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Writes query rows to a stored file in one of the {@link Query.OutputFormat}s, streaming each row as it comes.
+ * <p>
+ * Rows come either decoded as maps or as the raw JSON bytes returned by the query service. For ION and JSONL, raw rows
+ * are copied token by token from a streaming JSON parser to the output generator, so no object tree is built for them;
+ * CSV and AVRO need the fields of each row and decode them first.
+ * <p>
+ * CSV and AVRO are tabular: CSV columns are the top-level fields of the first row, AVRO columns those of the first rows
+ * sampled to infer the schema. Later rows have missing fields written as null and unknown fields dropped, and nested
+ * objects and arrays are written as JSON strings.
+ */
+abstract class RowWriter implements Closeable {
+    /**
+     * Rows requested ahead from the IO event loop by the tasks writing them to a file on a blocking scheduler, which bounds
+     * the rows buffered in memory when the disk is slower than the cluster.
+     */
+    static final int STORE_PREFETCH = 256;
+
+    private static final byte NEW_LINE = '\n';
+    private static final TypeReference<Map<String, Object>> MAP_TYPE_REFERENCE = new TypeReference<>() {
+    };
+
+    protected final OutputStream output;
+
+    private RowWriter(OutputStream output) {
+        this.output = output;
+    }
+
+    static RowWriter of(Query.OutputFormat format, Query.Compression compression, OutputStream output) throws IOException {
+        return switch (format) {
+            case ION -> new Ion(compress(compression, output));
+            case JSONL -> new JsonLines(compress(compression, output));
+            case CSV -> new Csv(compress(compression, output));
+            // avro compresses blocks inside its container instead
+            case AVRO -> new Avro(output, compression);
+        };
+    }
+
+    static String extension(Query.OutputFormat format, Query.Compression compression) {
+        return format == Query.OutputFormat.AVRO ? format.extension() : format.extension() + compression.extension();
+    }
+
+    private static OutputStream compress(Query.Compression compression, OutputStream output) throws IOException {
+        return switch (compression) {
+            case NONE -> output;
+            case GZIP -> new GZIPOutputStream(output, FileSerde.BUFFER_SIZE);
+            case ZSTD -> new ZstdOutputStream(output);
+        };
+    }
+
+    abstract void write(Map<String, Object> row) throws IOException;
+
+    abstract void writeRaw(byte[] row) throws IOException;
+
+    /**
+     * Transcodes a raw JSON row with a generator of the given factory, as one top-level value followed by a new line.
+     */
+    protected void transcode(JsonFactory factory, byte[] row) throws IOException {
+        try (
+            JsonParser parser = JacksonMapper.ofJson().getFactory().createParser(row);
+            JsonGenerator generator = factory.createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        ) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+
+        output.write(NEW_LINE);
+    }
+
+    protected static Map<String, Object> decode(byte[] row) throws IOException {
+        return JacksonMapper.ofJson().readValue(row, MAP_TYPE_REFERENCE);
+    }
+
+    /**
+     * Scalar values are kept, nested objects and arrays are flattened to their JSON representation.
+     */
+    protected static Object cell(Object value) throws IOException {
+        if (value instanceof Map || value instanceof List) {
+            return JacksonMapper.ofJson().writeValueAsString(value);
+        }
+
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    /**
+     * Raw rows go through a single Ion generator for the whole file: unlike the JSON one, an Ion generator closes its
+     * writer and the target stream with it, so it cannot be opened and closed around each row. The generator is given a
+     * writer that puts each top-level value on its own line, as {@link FileSerde#write(OutputStream, Object)} does.
+     */
+    private static class Ion extends RowWriter {
+        private IonWriter ionWriter;
+        private JsonGenerator generator;
+
+        private Ion(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        void write(Map<String, Object> row) throws IOException {
+            FileSerde.write(output, row);
+        }
+
+        @Override
+        void writeRaw(byte[] row) throws IOException {
+            if (generator == null) {
+                ionWriter = IonTextWriterBuilder.standard().withWriteTopLevelValuesOnNewLines(true).build(output);
+                generator = ((IonFactory) JacksonMapper.ofIon().getFactory()).createGenerator(ionWriter);
+            }
+
+            try (JsonParser parser = JacksonMapper.ofJson().getFactory().createParser(row)) {
+                parser.nextToken();
+                generator.copyCurrentStructure(parser);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (generator != null) {
+                generator.close();
+                // the last value is followed by a new line too, so pages and files can be concatenated
+                ionWriter.finish();
+                output.write(NEW_LINE);
+                ionWriter.close();
+            }
+
+            super.close();
+        }
+    }
+
+    private static class JsonLines extends RowWriter {
+        private JsonLines(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        void write(Map<String, Object> row) throws IOException {
+            output.write(JacksonMapper.ofJson().writeValueAsBytes(row));
+            output.write(NEW_LINE);
+        }
+
+        @Override
+        void writeRaw(byte[] row) throws IOException {
+            // compact rows are copied as is, pretty-printed ones are re-encoded to hold on a single line
+            if (hasLineBreak(row)) {
+                transcode(JacksonMapper.ofJson().getFactory(), row);
+            } else {
+                output.write(row);
+                output.write(NEW_LINE);
+            }
+        }
+
+        private static boolean hasLineBreak(byte[] row) {
+            for (byte b : row) {
+                if (b == '\n' || b == '\r') {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header line.
+     */
+    private static class Csv extends RowWriter {
+        private final Writer writer;
+        private List<String> columns;
+
+        private Csv(OutputStream output) {
+            super(output);
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), FileSerde.BUFFER_SIZE);
+        }
+
+        @Override
+        void write(Map<String, Object> row) throws IOException {
+            if (columns == null) {
+                columns = new ArrayList<>(row.keySet());
+                line(columns);
+            }
+
+            List<Object> values = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                values.add(cell(row.get(column)));
+            }
+            line(values);
+        }
+
+        @Override
+        void writeRaw(byte[] row) throws IOException {
+            write(decode(row));
+        }
+
+        private void line(List<?> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+
+                Object value = values.get(i);
+                if (value != null) {
+                    writer.write(escape(value.toString()));
+                }
+            }
+
+            writer.write("\r\n");
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    /**
+     * Avro object container file whose record schema is inferred from the first {@link #SAMPLE_SIZE} rows, which are buffered
+     * until the schema is known. Columns are the fields of the sampled rows in order of appearance, every field being nullable.
+     * A column holding integers and decimals in the sample is typed as double, and one holding values of different kinds as
+     * string. Typed columns also accept a string, so a later value that does not fit their type is written as its string
+     * form instead of failing the export. Field names that are not valid Avro names have their invalid characters replaced
+     * by underscores.
+     */
+    private static class Avro extends RowWriter {
+        private static final int SAMPLE_SIZE = 1000;
+
+        private final Query.Compression compression;
+        private final List<Map<String, Object>> sample = new ArrayList<>();
+        private DataFileWriter<GenericRecord> writer;
+        private Schema schema;
+        private List<String> keys;
+
+        private Avro(OutputStream output, Query.Compression compression) {
+            super(output);
+            this.compression = compression;
+        }
+
+        @Override
+        void write(Map<String, Object> row) throws IOException {
+            if (writer == null) {
+                sample.add(row);
+                if (sample.size() >= SAMPLE_SIZE) {
+                    open();
+                }
+                return;
+            }
+
+            append(row);
+        }
+
+        @Override
+        void writeRaw(byte[] row) throws IOException {
+            write(decode(row));
+        }
+
+        private void open() throws IOException {
+            Map<String, Schema.Type> types = types(sample);
+            keys = new ArrayList<>(types.keySet());
+            schema = schema(types);
+
+            writer = new DataFileWriter<GenericRecord>(new GenericDatumWriter<>(schema))
+                .setCodec(switch (compression) {
+                    case NONE -> CodecFactory.nullCodec();
+                    case GZIP -> CodecFactory.deflateCodec(CodecFactory.DEFAULT_DEFLATE_LEVEL);
+                    case ZSTD -> CodecFactory.zstandardCodec(CodecFactory.DEFAULT_ZSTANDARD_LEVEL);
+                })
+                .create(schema, output);
+
+            for (Map<String, Object> row : sample) {
+                append(row);
+            }
+            sample.clear();
+        }
+
+        private void append(Map<String, Object> row) throws IOException {
+            GenericRecord record = new GenericData.Record(schema);
+            for (Schema.Field field : schema.getFields()) {
+                record.put(field.pos(), value(field, row.get(keys.get(field.pos()))));
+            }
+
+            writer.append(record);
+        }
+
+        /**
+         * Widest type of each field over the sampled rows: integers and decimals widen to double, anything else mixed to string.
+         */
+        private static Map<String, Schema.Type> types(List<Map<String, Object>> rows) {
+            Map<String, Schema.Type> types = new LinkedHashMap<>();
+
+            for (Map<String, Object> row : rows) {
+                row.forEach((key, value) -> {
+                    Schema.Type type = switch (value) {
+                        case Boolean ignored -> Schema.Type.BOOLEAN;
+                        case Integer ignored -> Schema.Type.LONG;
+                        case Long ignored -> Schema.Type.LONG;
+                        case Number ignored -> Schema.Type.DOUBLE;
+                        case null -> Schema.Type.NULL;
+                        default -> Schema.Type.STRING;
+                    };
+
+                    types.merge(key, type, Avro::widen);
+                });
+            }
+
+            return types;
+        }
+
+        private static Schema.Type widen(Schema.Type current, Schema.Type next) {
+            if (current == next || next == Schema.Type.NULL) {
+                return current;
+            }
+            if (current == Schema.Type.NULL) {
+                return next;
+            }
+            if ((current == Schema.Type.LONG || current == Schema.Type.DOUBLE) && (next == Schema.Type.LONG || next == Schema.Type.DOUBLE)) {
+                return Schema.Type.DOUBLE;
+            }
+
+            return Schema.Type.STRING;
+        }
+
+        private static Schema schema(Map<String, Schema.Type> types) {
+            SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("Row").namespace("io.kestra.plugin.couchbase").fields();
+            Set<String> names = new HashSet<>();
+
+            for (Map.Entry<String, Schema.Type> entry : types.entrySet()) {
+                String name = name(entry.getKey());
+                while (!names.add(name)) {
+                    name = name + "_";
+                }
+
+                Schema type = switch (entry.getValue()) {
+                    case BOOLEAN -> SchemaBuilder.unionOf().nullType().and().booleanType().and().stringType().endUnion();
+                    case LONG -> SchemaBuilder.unionOf().nullType().and().longType().and().stringType().endUnion();
+                    case DOUBLE -> SchemaBuilder.unionOf().nullType().and().doubleType().and().stringType().endUnion();
+                    default -> SchemaBuilder.unionOf().nullType().and().stringType().endUnion();
+                };
+
+                fields.name(name).type(type).withDefault(null);
+            }
+
+            return fields.endRecord();
+        }
+
+        private static String name(String key) {
+            String name = key.replaceAll("[^A-Za-z0-9_]", "_");
+            return name.isEmpty() || Character.isDigit(name.charAt(0)) ? "_" + name : name;
+        }
+
+        private static Object value(Schema.Field field, Object value) throws IOException {
+            if (value == null) {
+                return null;
+            }
+
+            // fields are unions of null, their type and string as a fallback
+            Object typed = switch (field.schema().getTypes().get(1).getType()) {
+                case BOOLEAN -> value instanceof Boolean ? value : null;
+                case LONG -> value instanceof Integer || value instanceof Long ? ((Number) value).longValue() : null;
+                case DOUBLE -> value instanceof Number number ? number.doubleValue() : null;
+                default -> null;
+            };
+
+            return typed != null ? typed : cell(value).toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer == null) {
+                // a result smaller than the sample, possibly empty, still produces a readable container
+                open();
+            }
+
+            writer.close();
+        }
+    }
+}
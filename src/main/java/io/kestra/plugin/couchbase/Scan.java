@@ -0,0 +1,249 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.kv.ScanOptions;
+import com.couchbase.client.java.kv.ScanResult;
+import com.couchbase.client.java.kv.ScanTerm;
+import com.couchbase.client.java.kv.ScanType;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Export a Couchbase collection with a key-value range scan",
+    description = "Reads documents straight from the data nodes, vBucket by vBucket, with the key-value range, prefix or sampling scan, so no index and no query node are involved. Rows are streamed to an ion file in Kestra internal storage, each holding the document `id` and, unless `idsOnly` is set, its `cas` and `content`. Requires Couchbase Server 7.6 or later."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Export a whole collection",
+            full = true,
+            code = """
+                id: couchbase_scan
+                namespace: company.team
+
+                tasks:
+                  - id: scan
+                    type: io.kestra.plugin.couchbase.Scan
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    scope: my_scope
+                    collection: my_collection
+                    concurrency: 8
+                """
+        ),
+        @Example(
+            title = "List the keys starting with a prefix",
+            full = true,
+            code = """
+                id: couchbase_prefix_scan
+                namespace: company.team
+
+                tasks:
+                  - id: scan
+                    type: io.kestra.plugin.couchbase.Scan
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    scanType: PREFIX
+                    prefix: "user::"
+                    idsOnly: true
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of documents scanned."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent scanning.")
+    }
+)
+public class Scan extends CouchbaseCollection implements RunnableTask<Scan.Output> {
+    @Schema(
+        title = "Kind of scan",
+        description = "RANGE reads the keys between `fromKey` and `toKey` (the whole collection by default), PREFIX the keys starting with `prefix`, and SAMPLING a random sample of `limit` documents."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "main")
+    protected Property<ScanMode> scanType = Property.ofValue(ScanMode.RANGE);
+
+    @Schema(
+        title = "Inclusive lower key bound of a RANGE scan",
+        description = "Defaults to the lowest possible key."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<String> fromKey;
+
+    @Schema(
+        title = "Inclusive upper key bound of a RANGE scan",
+        description = "Defaults to the highest possible key."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<String> toKey;
+
+    @Schema(
+        title = "Key prefix of a PREFIX scan"
+    )
+    @PluginProperty(group = "processing")
+    protected Property<String> prefix;
+
+    @Schema(
+        title = "Number of documents of a SAMPLING scan"
+    )
+    @PluginProperty(group = "processing")
+    protected Property<Long> limit;
+
+    @Schema(
+        title = "Seed of a SAMPLING scan",
+        description = "The same seed returns the same sample on an unchanged collection."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<Long> seed;
+
+    @Schema(
+        title = "Only return document IDs",
+        description = "Skips the transfer of document bodies."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Boolean> idsOnly = Property.ofValue(false);
+
+    @Schema(
+        title = "Number of vBuckets scanned concurrently",
+        description = "Defaults to the SDK default of 1; raise it to spread the scan over more data nodes at once."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency;
+
+    @Schema(
+        title = "Maximum documents per vBucket batch",
+        description = "Defaults to the SDK default."
+    )
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> batchItemLimit;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        ScanType renderedScanType = scanType(runContext);
+        boolean renderedIdsOnly = runContext.render(idsOnly).as(Boolean.class).orElseThrow();
+
+        ScanOptions scanOptions = ScanOptions.scanOptions().idsOnly(renderedIdsOnly);
+        runContext.render(concurrency).as(Integer.class).ifPresent(scanOptions::concurrency);
+        runContext.render(batchItemLimit).as(Integer.class).ifPresent(scanOptions::batchItemLimit);
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+            long start = System.nanoTime();
+
+            Long size;
+            try (Writer fileWriter = new BufferedWriter(new FileWriter(tempFile), FileSerde.BUFFER_SIZE)) {
+                Flux<Map<String, Object>> rows = openCollection(runContext, cluster)
+                    .reactive()
+                    .scan(renderedScanType, scanOptions)
+                    .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH)
+                    .map(result -> toRow(result, renderedIdsOnly));
+
+                size = FileSerde.writeAll(fileWriter, rows).block();
+            }
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            runContext.metric(Counter.of("records", size));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Scanned {} documents in {}", size, duration);
+
+            return Output.builder()
+                .uri(runContext.storage().putFile(tempFile))
+                .size(size)
+                .build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    private ScanType scanType(RunContext runContext) throws Exception {
+        return switch (runContext.render(scanType).as(ScanMode.class).orElseThrow()) {
+            case RANGE -> ScanType.rangeScan(
+                runContext.render(fromKey).as(String.class).map(ScanTerm::inclusive).orElse(ScanTerm.minimum()),
+                runContext.render(toKey).as(String.class).map(ScanTerm::inclusive).orElse(ScanTerm.maximum())
+            );
+            case PREFIX -> ScanType.prefixScan(
+                runContext.render(prefix).as(String.class).orElseThrow(() -> new IllegalArgumentException("'prefix' is required for a PREFIX scan"))
+            );
+            case SAMPLING -> {
+                long renderedLimit = runContext.render(limit).as(Long.class).orElseThrow(() -> new IllegalArgumentException("'limit' is required for a SAMPLING scan"));
+                yield runContext.render(seed).as(Long.class)
+                    .map(renderedSeed -> ScanType.samplingScan(renderedLimit, renderedSeed))
+                    .orElse(ScanType.samplingScan(renderedLimit));
+            }
+        };
+    }
+
+    private static Map<String, Object> toRow(ScanResult result, boolean idsOnly) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", result.id());
+
+        if (!idsOnly) {
+            row.put("cas", result.cas());
+            putContent(row, () -> result.contentAs(Object.class), result::contentAsBytes);
+        }
+
+        return row;
+    }
+
+    public enum ScanMode {
+        RANGE,
+        PREFIX,
+        SAMPLING
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Scanned documents URI",
+            description = "Ion file in Kestra internal storage with one row per document holding its `id`, `cas` and `content`, or its raw bytes as `binary` for a document that is not JSON."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of documents scanned"
+        )
+        private Long size;
+    }
+}
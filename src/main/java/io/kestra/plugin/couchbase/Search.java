@@ -0,0 +1,359 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.search.SearchOptions;
+import com.couchbase.client.java.search.SearchQuery;
+import com.couchbase.client.java.search.SearchRequest;
+import com.couchbase.client.java.search.facet.SearchFacet;
+import com.couchbase.client.java.search.result.SearchFacetResult;
+import com.couchbase.client.java.search.result.SearchMetaData;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Search documents with a Couchbase full-text search index",
+    description = "Runs a query string against a Search (FTS) index, paging through the hits and streaming them to an ion file in Kestra internal storage. Each hit holds the document `id`, the `index` partition and the `score`, the stored `fields` requested, and, with `fetchDocuments`, the full document `content` read through the key-value service. Term facets are computed on the whole result and returned in the output."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Find hotels matching a text, with a facet on their country, and fetch the matching documents",
+            full = true,
+            code = """
+                id: couchbase_search
+                namespace: company.team
+
+                tasks:
+                  - id: search
+                    type: io.kestra.plugin.couchbase.Search
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: travel-sample
+                    scope: inventory
+                    collection: hotel
+                    index: hotels-index
+                    queryString: "description:pool +reviews.ratings.Overall:>=4"
+                    fields:
+                      - name
+                      - city
+                    sort:
+                      - "-_score"
+                      - name
+                    facets:
+                      countries:
+                        field: country
+                        size: 10
+                    limit: 500
+                    fetchDocuments: true
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of hits stored."),
+        @Metric(name = "total.hits", type = Counter.TYPE, description = "Total number of hits matching the query."),
+        @Metric(name = "server.took", type = Timer.TYPE, description = "Search time reported by the Search service for the first page."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent paging through the hits.")
+    }
+)
+public class Search extends CouchbaseConnection implements RunnableTask<Search.Output> {
+    @Schema(
+        title = "Bucket of the index and documents",
+        description = "Required with `scope` or `fetchDocuments`."
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> bucket;
+
+    @Schema(
+        title = "Scope of a scoped search index",
+        description = "When set, the search runs against a scope-level index; otherwise against a cluster-level index."
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> scope;
+
+    @Schema(
+        title = "Collection of the fetched documents",
+        description = "Only used with `fetchDocuments`. Defaults to `_default`."
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> collection;
+
+    @Schema(
+        title = "Name of the search index"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    protected Property<String> index;
+
+    @Schema(
+        title = "Query in the query string syntax",
+        description = "For example `description:pool +city:Paris -type:motel` or `name:\"grand hotel\"~2`."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    protected Property<String> queryString;
+
+    @Schema(
+        title = "Stored fields to return with each hit"
+    )
+    @PluginProperty(group = "processing")
+    protected Property<List<String>> fields;
+
+    @Schema(
+        title = "Sort order",
+        description = "Field names, prefixed with `-` for a descending order; `_score` and `_id` sort by relevance and document ID. Defaults to descending score."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<List<String>> sort;
+
+    @Schema(
+        title = "Term facets to compute, by name"
+    )
+    @PluginProperty(group = "processing")
+    protected Map<String, @Valid Facet> facets;
+
+    @Schema(
+        title = "Number of hits per page"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> pageSize = Property.ofValue(100);
+
+    @Schema(
+        title = "Maximum number of hits to store",
+        description = "Defaults to every hit, within the result window of the index (10,000 by default on the server)."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<Integer> limit;
+
+    @Schema(
+        title = "Fetch the matching documents",
+        description = "Reads the full document of each hit through the key-value service into its `content`."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Boolean> fetchDocuments = Property.ofValue(false);
+
+    @Schema(
+        title = "Maximum number of in-flight document fetches"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(32);
+
+    @Schema(
+        title = "Search timeout",
+        description = "Defaults to the cluster environment search timeout."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<Duration> searchTimeout;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        String renderedIndex = runContext.render(index).as(String.class).orElseThrow();
+        SearchQuery searchQuery = SearchQuery.queryString(runContext.render(queryString).as(String.class).orElseThrow());
+        int renderedPageSize = runContext.render(pageSize).as(Integer.class).orElseThrow();
+        int renderedLimit = runContext.render(limit).as(Integer.class).orElse(Integer.MAX_VALUE);
+        Map<String, SearchFacet> searchFacets = searchFacets(runContext);
+        List<String> renderedFields = runContext.render(fields).asList(String.class);
+        List<String> renderedSort = runContext.render(sort).asList(String.class);
+        Duration renderedSearchTimeout = runContext.render(searchTimeout).as(Duration.class).orElse(null);
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            SearchHits hits = new SearchHits(runContext, cluster, bucket, scope, collection);
+            File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+            AtomicReference<SearchMetaData> metaData = new AtomicReference<>();
+            AtomicReference<Map<String, SearchFacetResult>> facetResults = new AtomicReference<>(Map.of());
+            long start = System.nanoTime();
+
+            Flux<Map<String, Object>> rows = Flux.range(0, Integer.MAX_VALUE)
+                .concatMap(page -> {
+                    int skip = page * renderedPageSize;
+                    int size = Math.min(renderedPageSize, renderedLimit - skip);
+
+                    // facets are computed on the whole result, the first page is enough
+                    SearchOptions searchOptions = searchOptions(renderedFields, renderedSort, page == 0 ? searchFacets : Map.of(), renderedSearchTimeout)
+                        .skip(skip)
+                        .limit(size);
+
+                    return hits.search(renderedIndex, SearchRequest.create(searchQuery), searchOptions)
+                        .flatMap(result -> {
+                            Mono<Void> firstPage = page > 0 ? Mono.empty() : result.metaData().doOnNext(metaData::set)
+                                .then(result.facets().doOnNext(facetResults::set))
+                                .then();
+
+                            return result.rows().map(SearchHits::toRow).collectList()
+                                .flatMap(list -> firstPage.thenReturn(new Page(list, list.size() < size || skip + size >= renderedLimit)));
+                        });
+                })
+                .takeUntil(Page::last)
+                .concatMapIterable(Page::rows);
+
+            if (runContext.render(fetchDocuments).as(Boolean.class).orElseThrow()) {
+                rows = hits.withDocuments(rows, runContext.render(concurrency).as(Integer.class).orElseThrow());
+            }
+
+            Long size;
+            try (RowWriter writer = RowWriter.of(Query.OutputFormat.ION, Query.Compression.NONE, new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE))) {
+                size = rows
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(throwConsumer(writer::write))
+                    .count()
+                    .block();
+            }
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            Long totalHits = metaData.get() == null ? null : metaData.get().metrics().totalRows();
+            Duration took = metaData.get() == null ? null : metaData.get().metrics().took();
+
+            runContext.metric(Counter.of("records", size));
+            runContext.metric(Timer.of("duration", duration));
+            if (totalHits != null) {
+                runContext.metric(Counter.of("total.hits", totalHits));
+                runContext.metric(Timer.of("server.took", took));
+            }
+
+            logger.info("Stored {} of {} hits in {}", size, totalHits, duration);
+
+            return Output.builder()
+                .uri(runContext.storage().putFile(tempFile))
+                .size(size)
+                .totalHits(totalHits)
+                .took(took)
+                .facets(SearchHits.facets(facetResults.get()))
+                .build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    private static SearchOptions searchOptions(List<String> fields, List<String> sort, Map<String, SearchFacet> facets, Duration timeout) {
+        SearchOptions searchOptions = SearchOptions.searchOptions();
+
+        if (!fields.isEmpty()) {
+            searchOptions.fields(fields.toArray(String[]::new));
+        }
+        if (!sort.isEmpty()) {
+            searchOptions.sort(sort.toArray());
+        }
+        if (!facets.isEmpty()) {
+            searchOptions.facets(facets);
+        }
+        if (timeout != null) {
+            searchOptions.timeout(timeout);
+        }
+
+        return searchOptions;
+    }
+
+    private Map<String, SearchFacet> searchFacets(RunContext runContext) throws IllegalVariableEvaluationException {
+        Map<String, SearchFacet> searchFacets = new HashMap<>();
+
+        if (facets != null) {
+            for (Map.Entry<String, Facet> facet : facets.entrySet()) {
+                searchFacets.put(facet.getKey(), SearchFacet.term(
+                    runContext.render(facet.getValue().getField()).as(String.class).orElseThrow(),
+                    runContext.render(facet.getValue().getSize()).as(Integer.class).orElseThrow()
+                ));
+            }
+        }
+
+        return searchFacets;
+    }
+
+    private record Page(List<Map<String, Object>> rows, boolean last) {
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Facet {
+        @Schema(
+            title = "Field to count the terms of"
+        )
+        @NotNull
+        @PluginProperty
+        Property<String> field;
+
+        @Schema(
+            title = "Number of most frequent terms to return"
+        )
+        @NotNull
+        @Builder.Default
+        @PluginProperty
+        Property<Integer> size = Property.ofValue(10);
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Hits URI",
+            description = "Ion file with one row per hit, in the requested sort order."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of hits stored"
+        )
+        private Long size;
+
+        @Schema(
+            title = "Total number of hits matching the query"
+        )
+        private Long totalHits;
+
+        @Schema(
+            title = "Search time reported by the Search service"
+        )
+        private Duration took;
+
+        @Schema(
+            title = "Facet results, by name",
+            description = "Each facet holds its `field`, the `total`, `missing` and `other` counts and its top `terms` with their `count`."
+        )
+        private Map<String, Object> facets;
+    }
+}
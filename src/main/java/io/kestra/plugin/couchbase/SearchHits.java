@@ -0,0 +1,121 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.search.SearchOptions;
+import com.couchbase.client.java.search.SearchRequest;
+import com.couchbase.client.java.search.result.ReactiveSearchResult;
+import com.couchbase.client.java.search.result.SearchFacetResult;
+import com.couchbase.client.java.search.result.SearchRow;
+import com.couchbase.client.java.search.result.TermSearchFacetResult;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Search helpers shared by the search tasks: scoped or cluster-level requests, hit rows, document fetches and facets.
+ */
+final class SearchHits {
+    private static final String DEFAULT = "_default";
+
+    private final RunContext runContext;
+    private final Cluster cluster;
+    private final Property<String> bucket;
+    private final Property<String> scope;
+    private final Property<String> collection;
+
+    SearchHits(RunContext runContext, Cluster cluster, Property<String> bucket, Property<String> scope, Property<String> collection) {
+        this.runContext = runContext;
+        this.cluster = cluster;
+        this.bucket = bucket;
+        this.scope = scope;
+        this.collection = collection;
+    }
+
+    Mono<ReactiveSearchResult> search(String index, SearchRequest request, SearchOptions options) {
+        try {
+            Optional<String> renderedScope = runContext.render(scope).as(String.class);
+            if (renderedScope.isEmpty()) {
+                return cluster.reactive().search(index, request, options);
+            }
+
+            return cluster.bucket(renderedBucket())
+                .scope(renderedScope.get())
+                .reactive()
+                .search(index, request, options);
+        } catch (IllegalVariableEvaluationException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Adds the full document of each hit, keeping the hit order; hits whose document was deleted since indexing have a null content.
+     */
+    Flux<Map<String, Object>> withDocuments(Flux<Map<String, Object>> rows, int concurrency) throws IllegalVariableEvaluationException {
+        ReactiveCollection documents = cluster.bucket(renderedBucket())
+            .scope(runContext.render(scope).as(String.class).orElse(DEFAULT))
+            .collection(runContext.render(collection).as(String.class).orElse(DEFAULT))
+            .reactive();
+
+        return rows.flatMapSequential(
+            row -> documents.get((String) row.get("id"))
+                .map(document -> {
+                    row.put("content", document.contentAs(Object.class));
+                    return row;
+                })
+                .onErrorResume(DocumentNotFoundException.class, e -> Mono.just(row)),
+            concurrency
+        );
+    }
+
+    private String renderedBucket() throws IllegalVariableEvaluationException {
+        return runContext.render(bucket).as(String.class)
+            .orElseThrow(() -> new IllegalArgumentException("'bucket' is required for a scoped search or to fetch documents"));
+    }
+
+    static Map<String, Object> toRow(SearchRow searchRow) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", searchRow.id());
+        row.put("index", searchRow.index());
+        row.put("score", searchRow.score());
+
+        JsonObject rowFields = searchRow.fieldsAs(JsonObject.class);
+        if (rowFields != null) {
+            row.put("fields", rowFields.toMap());
+        }
+
+        return row;
+    }
+
+    static Map<String, Object> facets(Map<String, SearchFacetResult> results) {
+        Map<String, Object> facets = new LinkedHashMap<>();
+
+        results.forEach((name, result) -> {
+            Map<String, Object> facet = new LinkedHashMap<>();
+            facet.put("field", result.field());
+            facet.put("total", result.total());
+            facet.put("missing", result.missing());
+            facet.put("other", result.other());
+
+            if (result instanceof TermSearchFacetResult terms) {
+                facet.put("terms", terms.terms().stream()
+                    .map(term -> Map.of("term", term.name(), "count", term.count()))
+                    .toList());
+            }
+
+            facets.put(name, facet);
+        });
+
+        return facets;
+    }
+}
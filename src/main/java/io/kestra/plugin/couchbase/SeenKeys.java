@@ -0,0 +1,62 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import io.kestra.core.serializers.JacksonMapper;
+
+/**
+ * Bounded set of the row keys recently seen by a {@link Trigger}, evicting the least recently seen key once full.
+ */
+final class SeenKeys {
+    private final LinkedHashMap<String, Boolean> keys;
+
+    SeenKeys(List<String> stored, int capacity) {
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+
+        stored.forEach(key -> keys.put(key, Boolean.TRUE));
+    }
+
+    /**
+     * Records the key as the most recently seen one, returning whether it was not seen before.
+     */
+    boolean add(String key) {
+        return keys.put(key, Boolean.TRUE) == null;
+    }
+
+    /**
+     * Keys from the least to the most recently seen, so they are reloaded in the same order.
+     */
+    List<String> toList() {
+        return new ArrayList<>(keys.keySet());
+    }
+
+    static String key(Object row, List<String> fields) {
+        if (!(row instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Deduplication requires object rows, got " + row);
+        }
+
+        List<Object> values = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            if (map.get(field) == null) {
+                throw new IllegalArgumentException("Missing deduplication field '" + field + "' in row " + row);
+            }
+            values.add(map.get(field));
+        }
+
+        try {
+            return JacksonMapper.ofJson().writeValueAsString(values);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
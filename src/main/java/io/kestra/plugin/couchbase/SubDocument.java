@@ -0,0 +1,376 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.couchbase.client.core.error.DocumentNotFoundException;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.kv.LookupInResult;
+import com.couchbase.client.java.kv.LookupInSpec;
+import com.couchbase.client.java.kv.MutateInOptions;
+import com.couchbase.client.java.kv.MutateInResult;
+import com.couchbase.client.java.kv.MutateInSpec;
+import com.couchbase.client.java.kv.StoreSemantics;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+import static io.kestra.core.utils.Rethrow.throwFunction;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Read or patch document paths with sub-document operations",
+    description = "Runs `lookupIn` (GET, EXISTS) or `mutateIn` (UPSERT, ARRAY_APPEND, INCREMENT) on each key, concurrently, so only the requested paths travel over the network. All specs of a task must be either lookups or mutations. Each output row holds the document `id`, its `cas`, whether it was `found`, and the `values` returned per path."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Increment a counter and flag the status of several documents",
+            full = true,
+            code = """
+                id: couchbase_subdocument
+                namespace: company.team
+
+                tasks:
+                  - id: patch
+                    type: io.kestra.plugin.couchbase.SubDocument
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    keys:
+                      - order::1
+                      - order::2
+                    specs:
+                      - type: INCREMENT
+                        path: retries
+                        delta: 1
+                      - type: UPSERT
+                        path: status
+                        value: PROCESSING
+                    fetchType: FETCH
+                """
+        ),
+        @Example(
+            title = "Read a single nested field",
+            full = true,
+            code = """
+                id: couchbase_lookup_in
+                namespace: company.team
+
+                tasks:
+                  - id: lookup
+                    type: io.kestra.plugin.couchbase.SubDocument
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: my_bucket
+                    keys:
+                      - user::1
+                    specs:
+                      - type: GET
+                        path: profile.email
+                    fetchType: FETCH_ONE
+                """
+        )
+    }
+)
+public class SubDocument extends CouchbaseCollection implements RunnableTask<SubDocument.Output> {
+    @Schema(
+        title = "Document keys",
+        description = "Every spec is applied to each of these documents."
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    protected Property<List<String>> keys;
+
+    @Schema(
+        title = "Path operations",
+        description = "Lookups (GET, EXISTS) or mutations (UPSERT, ARRAY_APPEND, INCREMENT); lookups and mutations cannot be mixed."
+    )
+    @NotEmpty
+    @Valid
+    @PluginProperty(group = "main")
+    protected List<Spec> specs;
+
+    @Schema(
+        title = "Document store semantics for mutations",
+        description = "REPLACE requires an existing document, UPSERT creates missing documents and INSERT requires a missing document."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<StoreSemantics> storeSemantics = Property.ofValue(StoreSemantics.REPLACE);
+
+    @Schema(
+        title = "Maximum number of in-flight operations"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(32);
+
+    @Schema(
+        title = "How to return or store results",
+        description = "Defaults to STORE, which writes one row per document to Kestra internal storage. FETCH returns all rows inline, FETCH_ONE returns the first row, and NONE skips output."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<FetchType> fetchType = Property.ofValue(FetchType.STORE);
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        List<String> renderedKeys = runContext.render(keys).asList(String.class);
+        int renderedConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+        FetchType renderedFetchType = runContext.render(fetchType).as(FetchType.class).orElseThrow();
+        StoreSemantics renderedStoreSemantics = runContext.render(storeSemantics).as(StoreSemantics.class).orElseThrow();
+
+        List<String> paths = specs.stream().map(throwFunction(spec -> runContext.render(spec.getPath()))).toList();
+        boolean lookup = specs.stream().allMatch(spec -> spec.getType().isLookup());
+        if (!lookup && specs.stream().anyMatch(spec -> spec.getType().isLookup())) {
+            throw new IllegalArgumentException("Lookup specs (GET, EXISTS) cannot be mixed with mutation specs in the same task");
+        }
+
+        for (Spec spec : specs) {
+            if ((spec.getType() == SpecType.UPSERT || spec.getType() == SpecType.ARRAY_APPEND) && spec.getValue() == null) {
+                throw new IllegalArgumentException(spec.getType() + " of '" + spec.getPath() + "' requires a 'value'");
+            }
+            if (spec.getType() == SpecType.INCREMENT && spec.getDelta() == null) {
+                throw new IllegalArgumentException("INCREMENT of '" + spec.getPath() + "' requires a 'delta'");
+            }
+        }
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            ReactiveCollection target = openCollection(runContext, cluster).reactive();
+
+            Flux<Map<String, Object>> rows = Flux.fromIterable(renderedKeys)
+                .flatMapSequential(
+                    id -> lookup ? lookupIn(target, id, paths) : mutateIn(target, id, paths, renderedStoreSemantics),
+                    renderedConcurrency
+                );
+
+            return switch (renderedFetchType) {
+                case FETCH -> {
+                    List<Map<String, Object>> fetched = rows.collectList().block();
+                    yield Output.builder().rows(fetched).size((long) fetched.size()).build();
+                }
+                case FETCH_ONE -> {
+                    List<Map<String, Object>> fetched = rows.collectList().block();
+                    yield Output.builder().row(fetched.stream().findFirst().orElse(null)).size((long) fetched.size()).build();
+                }
+                case STORE -> {
+                    File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+                    Long size;
+                    try (RowWriter writer = RowWriter.of(Query.OutputFormat.ION, Query.Compression.NONE, new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE))) {
+                        size = rows
+                            // files are written off the IO event loop
+                            .publishOn(Schedulers.boundedElastic(), RowWriter.STORE_PREFETCH)
+                            .doOnNext(throwConsumer(writer::write))
+                            .count()
+                            .block();
+                    }
+
+                    yield Output.builder().uri(runContext.storage().putFile(tempFile)).size(size).build();
+                }
+                default -> Output.builder().size(rows.count().block()).build();
+            };
+        } finally {
+            close(cluster);
+        }
+    }
+
+    private Mono<Map<String, Object>> lookupIn(ReactiveCollection target, String id, List<String> paths) {
+        List<LookupInSpec> lookupInSpecs = new ArrayList<>();
+        for (int i = 0; i < specs.size(); i++) {
+            lookupInSpecs.add(switch (specs.get(i).getType()) {
+                case GET -> LookupInSpec.get(paths.get(i));
+                case EXISTS -> LookupInSpec.exists(paths.get(i));
+                default -> throw new IllegalStateException("Not a lookup spec: " + specs.get(i).getType());
+            });
+        }
+
+        return target.lookupIn(id, lookupInSpecs)
+            .map(result -> row(id, result.cas(), lookupValues(result, paths)))
+            .onErrorResume(DocumentNotFoundException.class, e -> Mono.just(notFound(id)));
+    }
+
+    private Map<String, Object> lookupValues(LookupInResult result, List<String> paths) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < specs.size(); i++) {
+            if (specs.get(i).getType() == SpecType.EXISTS) {
+                values.put(paths.get(i), result.exists(i));
+            } else {
+                values.put(paths.get(i), result.exists(i) ? result.contentAs(i, Object.class) : null);
+            }
+        }
+
+        return values;
+    }
+
+    private Mono<Map<String, Object>> mutateIn(ReactiveCollection target, String id, List<String> paths, StoreSemantics storeSemantics) {
+        List<MutateInSpec> mutateInSpecs = new ArrayList<>();
+        for (int i = 0; i < specs.size(); i++) {
+            Spec spec = specs.get(i);
+            boolean createPath = Boolean.TRUE.equals(spec.getCreatePath());
+
+            mutateInSpecs.add(switch (spec.getType()) {
+                case UPSERT -> createPath ? MutateInSpec.upsert(paths.get(i), spec.getValue()).createPath() : MutateInSpec.upsert(paths.get(i), spec.getValue());
+                case ARRAY_APPEND -> createPath ? MutateInSpec.arrayAppend(paths.get(i), List.of(spec.getValue())).createPath() : MutateInSpec.arrayAppend(paths.get(i), List.of(spec.getValue()));
+                case INCREMENT -> createPath ? MutateInSpec.increment(paths.get(i), spec.getDelta()).createPath() : MutateInSpec.increment(paths.get(i), spec.getDelta());
+                default -> throw new IllegalStateException("Not a mutation spec: " + spec.getType());
+            });
+        }
+
+        return target.mutateIn(id, mutateInSpecs, MutateInOptions.mutateInOptions().storeSemantics(storeSemantics))
+            .map(result -> row(id, result.cas(), mutateValues(result, paths)))
+            .onErrorResume(DocumentNotFoundException.class, e -> Mono.just(notFound(id)));
+    }
+
+    private Map<String, Object> mutateValues(MutateInResult result, List<String> paths) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < specs.size(); i++) {
+            // only counters return the updated value
+            if (specs.get(i).getType() == SpecType.INCREMENT) {
+                values.put(paths.get(i), result.contentAs(i, Long.class));
+            }
+        }
+
+        return values;
+    }
+
+    private static Map<String, Object> row(String id, long cas, Map<String, Object> values) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("found", true);
+        row.put("cas", cas);
+        row.put("values", values);
+        return row;
+    }
+
+    private static Map<String, Object> notFound(String id) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("found", false);
+        return row;
+    }
+
+    public enum SpecType {
+        GET(true),
+        EXISTS(true),
+        UPSERT(false),
+        ARRAY_APPEND(false),
+        INCREMENT(false);
+
+        private final boolean lookup;
+
+        SpecType(boolean lookup) {
+            this.lookup = lookup;
+        }
+
+        boolean isLookup() {
+            return lookup;
+        }
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Spec {
+        @Schema(
+            title = "Operation on the path"
+        )
+        @NotNull
+        @PluginProperty
+        SpecType type;
+
+        @Schema(
+            title = "Path inside the document",
+            description = "Sub-document path such as `status` or `profile.addresses[0].city`."
+        )
+        @NotNull
+        @NotBlank
+        @PluginProperty(dynamic = true)
+        String path;
+
+        @Schema(
+            title = "Value to write",
+            description = "Used by UPSERT and ARRAY_APPEND."
+        )
+        @PluginProperty
+        Object value;
+
+        @Schema(
+            title = "Counter delta",
+            description = "Used by INCREMENT; negative values decrement."
+        )
+        @Builder.Default
+        @PluginProperty
+        Long delta = 1L;
+
+        @Schema(
+            title = "Create missing intermediate paths",
+            description = "Used by mutations."
+        )
+        @Builder.Default
+        @PluginProperty
+        Boolean createPath = false;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "All rows",
+            description = "Present when fetchType resolves to FETCH; one row per key."
+        )
+        private List<Map<String, Object>> rows;
+
+        @Schema(
+            title = "First row",
+            description = "Present when fetchType resolves to FETCH_ONE."
+        )
+        private Map<String, Object> row;
+
+        @Schema(
+            title = "Stored rows URI",
+            description = "Present when fetchType resolves to STORE."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of documents processed"
+        )
+        private Long size;
+    }
+}
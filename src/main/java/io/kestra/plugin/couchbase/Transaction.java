@@ -0,0 +1,307 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.ReactiveCollection;
+import com.couchbase.client.java.json.JsonObject;
+import com.couchbase.client.java.transactions.ReactiveTransactionAttemptContext;
+import com.couchbase.client.java.transactions.TransactionResult;
+import com.couchbase.client.java.transactions.config.TransactionOptions;
+
+import io.kestra.core.exceptions.IllegalVariableEvaluationException;
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Run document operations and N1QL statements in one ACID transaction",
+    description = "Runs key-value operations on the documents of the collection, then N1QL statements, inside a single distributed transaction: either every change is committed or none is. Operations on different documents run concurrently; operations on the same document run in their declared order. Statements run one after the other once every operation is done. The transaction is retried as a whole on transient conflicts until `transactionTimeout`, and the task fails if it cannot commit."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Move stock between two warehouses and record the transfer atomically",
+            full = true,
+            code = """
+                id: couchbase_transaction
+                namespace: company.team
+
+                tasks:
+                  - id: transfer
+                    type: io.kestra.plugin.couchbase.Transaction
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: shop
+                    scope: inventory
+                    collection: stock
+                    operations:
+                      - type: REPLACE
+                        id: warehouse::paris::sku-42
+                        document:
+                          quantity: 90
+                      - type: REPLACE
+                        id: warehouse::lyon::sku-42
+                        document:
+                          quantity: 10
+                      - type: INSERT
+                        id: "transfer::{{ execution.id }}"
+                        document:
+                          sku: sku-42
+                          from: paris
+                          to: lyon
+                          quantity: 10
+                    queries:
+                      - UPDATE `shop`.`inventory`.`totals` SET moved = moved + 10 WHERE sku = 'sku-42'
+                    durability: MAJORITY
+                    transactionTimeout: PT30S
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "operations", type = Counter.TYPE, description = "Number of key-value operations committed."),
+        @Metric(name = "queries", type = Counter.TYPE, description = "Number of statements committed."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent running and committing the transaction, retries included.")
+    }
+)
+public class Transaction extends CouchbaseCollection implements RunnableTask<Transaction.Output> {
+    @Schema(
+        title = "Document operations",
+        description = "GET reads a document, INSERT creates a missing one, REPLACE overwrites an existing one and REMOVE deletes it."
+    )
+    @Valid
+    @PluginProperty(group = "main")
+    protected List<Operation> operations;
+
+    @Schema(
+        title = "N1QL statements",
+        description = "Run in order after the document operations, and see their changes."
+    )
+    @PluginProperty(group = "main")
+    protected Property<List<String>> queries;
+
+    @Schema(
+        title = "Maximum number of documents written at once"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(16);
+
+    @Schema(
+        title = "Durability level",
+        description = "Durability requirement of the writes of the transaction. Defaults to MAJORITY, which requires as many replicas as the bucket is configured with."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<DurabilityLevel> durability;
+
+    @Schema(
+        title = "Transaction timeout",
+        description = "Total time allowed to run and commit the transaction, retries included. Defaults to 15 seconds."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<Duration> transactionTimeout;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        List<RenderedOperation> renderedOperations = renderOperations(runContext);
+        List<String> renderedQueries = runContext.render(queries).asList(String.class);
+        if (renderedOperations.isEmpty() && renderedQueries.isEmpty()) {
+            throw new IllegalArgumentException("At least one of 'operations' or 'queries' must be set");
+        }
+
+        int renderedConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+
+        TransactionOptions transactionOptions = TransactionOptions.transactionOptions();
+        runContext.render(durability).as(DurabilityLevel.class).ifPresent(transactionOptions::durabilityLevel);
+        runContext.render(transactionTimeout).as(Duration.class).ifPresent(transactionOptions::timeout);
+
+        // operations on the same document keep their order, others run concurrently
+        Map<String, List<RenderedOperation>> byDocument = new LinkedHashMap<>();
+        renderedOperations.forEach(operation -> byDocument.computeIfAbsent(operation.id(), id -> new ArrayList<>()).add(operation));
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            ReactiveCollection target = openCollection(runContext, cluster).reactive();
+            AtomicReference<Attempt> committed = new AtomicReference<>();
+            long start = System.nanoTime();
+
+            TransactionResult result = cluster.reactive().transactions().run(
+                context -> Flux.fromIterable(byDocument.values())
+                    .flatMap(group -> Flux.fromIterable(group).concatMap(operation -> apply(context, target, operation)), renderedConcurrency)
+                    .collectSortedList(Comparator.comparingInt(IndexedRow::index))
+                    .flatMap(rows -> Flux.fromIterable(renderedQueries)
+                        .concatMap(statement -> context.query(statement).map(queryResult -> queryResult.rowsAs(JsonObject.class).stream().map(JsonObject::toMap).toList()))
+                        .collectList()
+                        // an attempt can be retried, only the last one is committed
+                        .doOnNext(queryRows -> committed.set(new Attempt(rows.stream().map(IndexedRow::row).toList(), queryRows)))),
+                transactionOptions
+            ).block();
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            runContext.metric(Counter.of("operations", renderedOperations.size()));
+            runContext.metric(Counter.of("queries", renderedQueries.size()));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Committed transaction '{}' of {} operations and {} statements in {}", result.transactionId(), renderedOperations.size(), renderedQueries.size(), duration);
+
+            return Output.builder()
+                .transactionId(result.transactionId())
+                .unstagingComplete(result.unstagingComplete())
+                .operations(committed.get().operations())
+                .queries(committed.get().queries())
+                .build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RenderedOperation> renderOperations(RunContext runContext) throws IllegalVariableEvaluationException {
+        List<RenderedOperation> rendered = new ArrayList<>();
+        if (operations == null) {
+            return rendered;
+        }
+
+        for (Operation operation : operations) {
+            String id = runContext.render(operation.getId()).as(String.class).orElseThrow();
+            Object document = switch (operation.getDocument()) {
+                case Map<?, ?> map -> runContext.render((Map<String, Object>) map);
+                case String string -> runContext.render(string);
+                case null, default -> operation.getDocument();
+            };
+
+            if (document == null && (operation.getType() == OperationType.INSERT || operation.getType() == OperationType.REPLACE)) {
+                throw new IllegalArgumentException(operation.getType() + " of '" + id + "' requires a 'document'");
+            }
+
+            rendered.add(new RenderedOperation(rendered.size(), operation.getType(), id, document));
+        }
+
+        return rendered;
+    }
+
+    private static Mono<IndexedRow> apply(ReactiveTransactionAttemptContext context, ReactiveCollection target, RenderedOperation operation) {
+        Mono<Object> content = switch (operation.type()) {
+            case GET -> context.get(target, operation.id())
+                .map(document -> document.contentAs(Object.class));
+            case INSERT -> context.insert(target, operation.id(), operation.document())
+                .map(document -> operation.document());
+            case REPLACE -> context.get(target, operation.id())
+                .flatMap(document -> context.replace(document, operation.document()))
+                .map(document -> operation.document());
+            case REMOVE -> context.get(target, operation.id())
+                .flatMap(context::remove)
+                .then(Mono.empty());
+        };
+
+        return content
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .map(value -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("id", operation.id());
+                row.put("type", operation.type().name());
+                row.put("content", value.orElse(null));
+                return new IndexedRow(operation.index(), row);
+            });
+    }
+
+    private record RenderedOperation(int index, OperationType type, String id, Object document) {
+    }
+
+    private record IndexedRow(int index, Map<String, Object> row) {
+    }
+
+    private record Attempt(List<Map<String, Object>> operations, List<List<Map<String, Object>>> queries) {
+    }
+
+    public enum OperationType {
+        GET,
+        INSERT,
+        REPLACE,
+        REMOVE
+    }
+
+    @Value
+    @Builder
+    @Jacksonized
+    public static class Operation {
+        @Schema(
+            title = "Operation on the document"
+        )
+        @NotNull
+        @PluginProperty
+        OperationType type;
+
+        @Schema(
+            title = "Document key"
+        )
+        @NotNull
+        @PluginProperty
+        Property<String> id;
+
+        @Schema(
+            title = "Document content",
+            description = "Required by INSERT and REPLACE."
+        )
+        @PluginProperty(dynamic = true)
+        Object document;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Transaction ID"
+        )
+        private String transactionId;
+
+        @Schema(
+            title = "Whether every change was made visible before the task returned",
+            description = "When false, the transaction is committed but some documents are still being unstaged by the cluster; they become visible shortly after."
+        )
+        private Boolean unstagingComplete;
+
+        @Schema(
+            title = "Result of each document operation",
+            description = "In the order of `operations`; each holds the document `id`, the operation `type` and the `content` read or written."
+        )
+        private List<Map<String, Object>> operations;
+
+        @Schema(
+            title = "Rows returned by each statement",
+            description = "In the order of `queries`."
+        )
+        private List<List<Map<String, Object>>> queries;
+    }
+}
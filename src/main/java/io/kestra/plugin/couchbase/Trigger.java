@@ -1,10 +1,17 @@
 package io.kestra.plugin.couchbase;
 
+import java.io.*;
+import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 
+import com.couchbase.client.java.query.QueryProfile;
+
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Plugin;
 import io.kestra.core.models.conditions.ConditionContext;
@@ -14,8 +21,10 @@ import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.common.FetchType;
 import io.kestra.core.models.triggers.*;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -28,7 +37,7 @@ import lombok.experimental.SuperBuilder;
 @NoArgsConstructor
 @Schema(
     title = "Poll Couchbase query and start flow",
-    description = "Periodically runs the rendered N1QL query and starts the flow when rows are returned. Default interval is 60 seconds and fetchType defaults to STORE, writing results to Kestra internal storage; use FETCH or FETCH_ONE to expose rows inline."
+    description = "Periodically runs the rendered N1QL query and starts the flow when rows are returned. Default interval is 60 seconds and fetchType defaults to STORE, writing results to Kestra internal storage; use FETCH or FETCH_ONE to expose rows inline. Set `batchSize` to split the rows of a poll into micro-batches started one per evaluation, and `deduplicationFields` to skip the rows already seen by a previous poll."
 )
 @Plugin(
     examples = {
@@ -58,10 +67,68 @@ import lombok.experimental.SuperBuilder;
                     query: SELECT * FROM `COUCHBASE_BUCKET`(.`COUCHBASE_SCOPE`.`COUCHBASE_COLLECTION`)
                     fetchType: FETCH
                 """
+        ),
+        @Example(
+            title = "Only poll documents modified since the previous poll, using their CAS as watermark.",
+            full = true,
+            code = """
+                id: couchbase_incremental_trigger
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.size }} new documents"
+
+                triggers:
+                  - id: watch
+                    type: io.kestra.plugin.couchbase.Trigger
+                    interval: "PT1M"
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: |
+                      SELECT META(d).cas AS cas, d.* FROM `COUCHBASE_BUCKET` d
+                      WHERE META(d).cas > $watermark
+                    watermarkField: cas
+                    initialWatermark: 0
+                """
+        ),
+        @Example(
+            title = "Process new orders by batches of 100, once each, even if the query keeps returning them until they are handled.",
+            full = true,
+            code = """
+                id: couchbase_batch_trigger
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.size }} orders to handle"
+
+                triggers:
+                  - id: watch
+                    type: io.kestra.plugin.couchbase.Trigger
+                    interval: "PT1M"
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: |
+                      SELECT META(o).id AS id, META(o).cas AS cas, o.* FROM `shop`.`sales`.`orders` o
+                      WHERE o.status = 'NEW'
+                    batchSize: 100
+                    deduplicationFields:
+                      - id
+                      - cas
+                """
         )
     }
 )
 public class Trigger extends AbstractTrigger implements PollingTriggerInterface, TriggerOutput<Query.Output>, CouchbaseConnectionInterface, QueryInterface {
+    private static final String WATERMARK_STATE = "watermark";
+    private static final String BATCHES_STATE = "batches";
+    private static final String SEEN_STATE = "seen";
+
     @NotNull
     @NotBlank
     protected String connectionString;
@@ -77,6 +144,9 @@ public class Trigger extends AbstractTrigger implements PollingTriggerInterface,
     @PluginProperty(secret = true, dynamic = true, group = "connection")
     protected String password;
 
+    @Valid
+    protected ClusterEnvironmentConfig environment;
+
     @NotNull
     @NotBlank
     protected String query;
@@ -85,36 +155,281 @@ public class Trigger extends AbstractTrigger implements PollingTriggerInterface,
 
     @NotNull
     @Builder.Default
+    @PluginProperty(group = "processing")
     protected Property<FetchType> fetchType = Property.ofValue(FetchType.STORE);
 
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> adhoc = Property.ofValue(true);
+
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "advanced")
+    protected Property<QueryProfile> profile = Property.ofValue(QueryProfile.OFF);
+
+    @PluginProperty(group = "execution")
+    protected Property<ScanConsistency> scanConsistency;
+
+    @PluginProperty(group = "execution")
+    protected Property<Map<String, Object>> consistentWith;
+
+    @PluginProperty(group = "execution")
+    protected Property<Duration> queryTimeout;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> maxParallelism;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> pipelineBatch;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> pipelineCap;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Integer> scanCap;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> readonly;
+
+    @PluginProperty(group = "advanced")
+    protected Property<Boolean> flexIndex;
+
+    @Valid
+    @PluginProperty(group = "execution")
+    protected Query.Preflight preflight;
+
     @NotNull
     @Builder.Default
     protected final Duration interval = Duration.ofSeconds(60);
 
+    @Schema(
+        title = "Watermark field",
+        description = "Enables incremental polling: the highest value of this field among the returned rows (for example a CAS, a timestamp or a sequence) is kept in the trigger state and passed to the next poll as the named parameter `watermarkParameter`, so the query only has to read new rows, e.g. `WHERE META().cas > $watermark`."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<String> watermarkField;
+
+    @Schema(
+        title = "Watermark parameter name",
+        description = "Named query parameter receiving the last watermark."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<String> watermarkParameter = Property.ofValue("watermark");
+
+    @Schema(
+        title = "Initial watermark",
+        description = "Watermark used until a first value has been stored; required with `watermarkField`. Use a value of the same type as the field, e.g. 0 or `1970-01-01T00:00:00Z`."
+    )
+    @PluginProperty(group = "processing")
+    protected Object initialWatermark;
+
+    @Schema(
+        title = "Number of rows per execution",
+        description = "Splits the rows of a poll into micro-batches of up to this many rows, each stored as a file and started as its own execution. A poll starts its first batch; the others are queued in the trigger state and started one per evaluation, before the query runs again. With FETCH or FETCH_ONE, `rows` or `row` only hold the rows of the batch."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<Integer> batchSize;
+
+    @Schema(
+        title = "Fields identifying a row for deduplication",
+        description = "Rows whose values of these fields were already seen by a previous poll are skipped, so a row still returned by the query is only processed once. Use the document ID and CAS, e.g. `META().id AS id, META().cas AS cas`, to process each change of a document once."
+    )
+    @PluginProperty(group = "processing")
+    protected Property<List<String>> deduplicationFields;
+
+    @Schema(
+        title = "Number of row keys remembered for deduplication",
+        description = "The least recently seen keys are forgotten beyond this size."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Integer> deduplicationSize = Property.ofValue(10_000);
+
     @Override
     public Optional<Execution> evaluate(ConditionContext conditionContext, TriggerContext context) throws Exception {
         RunContext runContext = conditionContext.getRunContext();
         Logger logger = runContext.logger();
 
+        FetchType renderedFetchType = runContext.render(fetchType).as(FetchType.class).orElseThrow();
+        Integer renderedBatchSize = runContext.render(batchSize).as(Integer.class).orElse(null);
+        if (renderedBatchSize != null && renderedBatchSize < 1) {
+            throw new IllegalArgumentException("'batchSize' must be at least 1, got " + renderedBatchSize);
+        }
+        List<String> renderedDeduplicationFields = runContext.render(deduplicationFields).asList(String.class);
+        boolean split = renderedBatchSize != null || !renderedDeduplicationFields.isEmpty();
+
+        if (split) {
+            List<Batch> queued = queuedBatches(runContext);
+            if (!queued.isEmpty()) {
+                logger.debug("Starting a queued batch, {} left", queued.size() - 1);
+                TriggerState.put(runContext, id, BATCHES_STATE, toState(queued.subList(1, queued.size())));
+
+                return Optional.of(TriggerService.generateExecution(this, conditionContext, context, output(runContext, queued.getFirst(), renderedFetchType)));
+            }
+        }
+
+        String renderedWatermarkField = runContext.render(watermarkField).as(String.class).orElse(null);
+        Object queryParameters = parameters;
+        Object watermark = null;
+
+        if (renderedWatermarkField != null) {
+            watermark = TriggerState.get(runContext, id, WATERMARK_STATE).orElse(initialWatermark);
+            if (watermark == null) {
+                throw new IllegalArgumentException("'initialWatermark' is required when 'watermarkField' is set");
+            }
+
+            queryParameters = Watermarks.withParameter(parameters, runContext.render(watermarkParameter).as(String.class).orElseThrow(), watermark);
+        }
+
+        long start = System.nanoTime();
         Query.Output run = Query.builder()
             .id(id)
             .type(Query.class.getName())
             .connectionString(connectionString)
             .username(username)
             .password(password)
+            .environment(environment)
             .query(query)
-            .parameters(parameters)
-            .fetchType(fetchType)
+            .parameters(queryParameters)
+            // batches are split from the stored rows
+            .fetchType(split ? Property.ofValue(FetchType.STORE) : fetchType)
+            .adhoc(adhoc)
+            .profile(profile)
+            .scanConsistency(scanConsistency)
+            .consistentWith(consistentWith)
+            .queryTimeout(queryTimeout)
+            .maxParallelism(maxParallelism)
+            .pipelineBatch(pipelineBatch)
+            .pipelineCap(pipelineCap)
+            .scanCap(scanCap)
+            .readonly(readonly)
+            .flexIndex(flexIndex)
+            .preflight(preflight)
             .build().run(runContext);
 
-        logger.debug("Found '{}' rows from '{}'", run.getSize(), runContext.render(this.query));
+        logger.debug("Found '{}' rows from '{}' in {}", run.getSize(), runContext.render(this.query), Duration.ofNanos(System.nanoTime() - start));
 
         if (run.getSize() == 0) {
             return Optional.empty();
         }
 
-        Execution execution = TriggerService.generateExecution(this, conditionContext, context, run);
+        if (renderedWatermarkField != null) {
+            Object next = Watermarks.max(runContext, run, renderedWatermarkField, watermark);
+            logger.debug("Advancing watermark from '{}' to '{}'", watermark, next);
+            TriggerState.put(runContext, id, WATERMARK_STATE, next);
+        }
+
+        if (!split) {
+            return Optional.of(TriggerService.generateExecution(this, conditionContext, context, run));
+        }
+
+        List<Batch> batches = split(runContext, run.getUri(), renderedBatchSize, renderedDeduplicationFields);
+        logger.debug("Split {} rows into {} batches", run.getSize(), batches.size());
+
+        if (batches.isEmpty()) {
+            return Optional.empty();
+        }
+
+        TriggerState.put(runContext, id, BATCHES_STATE, toState(batches.subList(1, batches.size())));
+
+        return Optional.of(TriggerService.generateExecution(this, conditionContext, context, output(runContext, batches.getFirst(), renderedFetchType)));
+    }
+
+    /**
+     * Splits the stored rows into files of up to {@code batchSize} rows, skipping the rows already seen when deduplicating.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Batch> split(RunContext runContext, URI uri, Integer batchSize, List<String> deduplicationFields) throws Exception {
+        SeenKeys seen = deduplicationFields.isEmpty() ? null : new SeenKeys(
+            (List<String>) TriggerState.get(runContext, id, SEEN_STATE).orElse(List.of()),
+            runContext.render(deduplicationSize).as(Integer.class).orElseThrow()
+        );
+
+        List<Batch> batches = new ArrayList<>();
+        File file = null;
+        OutputStream output = null;
+        long size = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(uri)), FileSerde.BUFFER_SIZE)) {
+            for (Object row : FileSerde.readAll(reader).toIterable()) {
+                if (seen != null && !seen.add(SeenKeys.key(row, deduplicationFields))) {
+                    continue;
+                }
+
+                if (output == null) {
+                    file = runContext.workingDir().createTempFile(".ion").toFile();
+                    output = new BufferedOutputStream(new FileOutputStream(file), FileSerde.BUFFER_SIZE);
+                }
+
+                FileSerde.write(output, row);
+                size++;
+
+                if (batchSize != null && size == batchSize) {
+                    output.close();
+                    batches.add(new Batch(runContext.storage().putFile(file), size));
+                    output = null;
+                    size = 0;
+                }
+            }
+        } finally {
+            if (output != null) {
+                output.close();
+            }
+        }
+
+        if (size > 0) {
+            batches.add(new Batch(runContext.storage().putFile(file), size));
+        }
+
+        if (seen != null) {
+            TriggerState.put(runContext, id, SEEN_STATE, seen.toList());
+        }
+
+        return batches;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Batch> queuedBatches(RunContext runContext) throws Exception {
+        return TriggerState.get(runContext, id, BATCHES_STATE)
+            .map(stored -> ((List<Map<String, Object>>) stored).stream()
+                .map(batch -> new Batch(URI.create((String) batch.get("uri")), ((Number) batch.get("size")).longValue()))
+                .toList()
+            )
+            .orElse(List.of());
+    }
+
+    private static List<Map<String, Object>> toState(List<Batch> batches) {
+        return batches.stream()
+            .map(batch -> Map.<String, Object>of("uri", batch.uri().toString(), "size", batch.size()))
+            .toList();
+    }
+
+    /**
+     * Exposes a batch as the fetchType asks, reading its rows back from storage for FETCH and FETCH_ONE.
+     */
+    @SuppressWarnings("unchecked")
+    private static Query.Output output(RunContext runContext, Batch batch, FetchType fetchType) throws Exception {
+        Query.Output.OutputBuilder outputBuilder = Query.Output.builder().size(batch.size());
+
+        if (fetchType == FetchType.STORE) {
+            return outputBuilder.uri(batch.uri()).build();
+        }
+        if (fetchType == FetchType.NONE) {
+            return outputBuilder.build();
+        }
+
+        List<Map<String, Object>> rows;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(batch.uri())), FileSerde.BUFFER_SIZE)) {
+            rows = FileSerde.readAll(reader).map(row -> (Map<String, Object>) row).collectList().block();
+        }
+
+        return fetchType == FetchType.FETCH_ONE ? outputBuilder.row(rows.getFirst()).build() : outputBuilder.rows(rows).build();
+    }
 
-        return Optional.of(execution);
+    private record Batch(URI uri, long size) {
     }
 }
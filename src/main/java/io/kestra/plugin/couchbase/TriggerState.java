@@ -0,0 +1,41 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+import io.kestra.core.exceptions.ResourceExpiredException;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.storages.kv.KVMetadata;
+import io.kestra.core.storages.kv.KVStore;
+import io.kestra.core.storages.kv.KVValue;
+import io.kestra.core.storages.kv.KVValueAndMetadata;
+
+/**
+ * Values persisted between evaluations of a trigger, kept in the KV store of the flow namespace.
+ */
+final class TriggerState {
+    private TriggerState() {
+    }
+
+    static Optional<Object> get(RunContext runContext, String triggerId, String name) throws IOException, ResourceExpiredException {
+        return kvStore(runContext)
+            .getValue(key(runContext, triggerId, name))
+            .map(KVValue::value);
+    }
+
+    static void put(RunContext runContext, String triggerId, String name, Object value) throws IOException {
+        kvStore(runContext).put(
+            key(runContext, triggerId, name),
+            new KVValueAndMetadata(new KVMetadata("State of Couchbase trigger '" + triggerId + "'", (Duration) null), value)
+        );
+    }
+
+    private static KVStore kvStore(RunContext runContext) {
+        return runContext.namespaceKv(runContext.flowInfo().namespace());
+    }
+
+    private static String key(RunContext runContext, String triggerId, String name) {
+        return "couchbase_trigger_" + runContext.flowInfo().id() + "_" + triggerId + "_" + name;
+    }
+}
@@ -0,0 +1,340 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.*;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.search.SearchOptions;
+import com.couchbase.client.java.search.SearchQuery;
+import com.couchbase.client.java.search.SearchRequest;
+import com.couchbase.client.java.search.result.ReactiveSearchResult;
+import com.couchbase.client.java.search.vector.VectorQuery;
+
+import io.kestra.core.models.annotations.Example;
+import io.kestra.core.models.annotations.Metric;
+import io.kestra.core.models.annotations.Plugin;
+import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.executions.metrics.Counter;
+import io.kestra.core.models.executions.metrics.Timer;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.RunnableTask;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+
+@SuperBuilder
+@ToString
+@EqualsAndHashCode
+@Getter
+@NoArgsConstructor
+@Schema(
+    title = "Find the nearest neighbors of vectors with a Couchbase search index",
+    description = "Sends a k-NN query on a vector field of a Search index for each query vector, optionally restricted by a query string pre-filter, and streams the top `k` hits of every vector to an ion file in Kestra internal storage. The query vector is given inline or read from an ion file holding many vectors, which are searched concurrently. Each hit carries the position of its query vector in `query`, along with the fields of a `Search` hit."
+)
+@Plugin(
+    examples = {
+        @Example(
+            title = "Find the 5 products closest to an embedding, among the products in stock",
+            full = true,
+            code = """
+                id: couchbase_vector_search
+                namespace: company.team
+
+                inputs:
+                  - id: embedding
+                    type: ARRAY
+                    itemType: FLOAT
+
+                tasks:
+                  - id: similar
+                    type: io.kestra.plugin.couchbase.VectorSearch
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: shop
+                    scope: catalog
+                    collection: products
+                    index: products-vector-index
+                    vectorField: embedding
+                    vector: "{{ inputs.embedding }}"
+                    k: 5
+                    prefilter: "stock:>0"
+                    fields:
+                      - name
+                    fetchDocuments: true
+                """
+        ),
+        @Example(
+            title = "Search the neighbors of every embedding stored by a previous task",
+            full = true,
+            code = """
+                id: couchbase_vector_search_batch
+                namespace: company.team
+
+                tasks:
+                  - id: embeddings
+                    type: io.kestra.plugin.couchbase.Query
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    query: SELECT META().id AS id, embedding FROM `shop`.`catalog`.`new_products`
+
+                  - id: similar
+                    type: io.kestra.plugin.couchbase.VectorSearch
+                    connectionString: couchbase://localhost
+                    username: couchbase_user
+                    password: "{{ secret('COUCHBASE_PASSWORD') }}"
+                    bucket: shop
+                    scope: catalog
+                    index: products-vector-index
+                    vectorField: embedding
+                    from: "{{ outputs.embeddings.uri }}"
+                    inputField: embedding
+                    k: 10
+                    concurrency: 16
+                """
+        )
+    },
+    metrics = {
+        @Metric(name = "queries", type = Counter.TYPE, description = "Number of query vectors searched."),
+        @Metric(name = "records", type = Counter.TYPE, description = "Number of hits stored."),
+        @Metric(name = "duration", type = Timer.TYPE, description = "Time spent searching all vectors.")
+    }
+)
+public class VectorSearch extends CouchbaseConnection implements RunnableTask<VectorSearch.Output> {
+    @Schema(
+        title = "Bucket of the index and documents",
+        description = "Required with `scope` or `fetchDocuments`."
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> bucket;
+
+    @Schema(
+        title = "Scope of a scoped search index",
+        description = "When set, the search runs against a scope-level index; otherwise against a cluster-level index."
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> scope;
+
+    @Schema(
+        title = "Collection of the fetched documents",
+        description = "Only used with `fetchDocuments`. Defaults to `_default`."
+    )
+    @PluginProperty(group = "connection")
+    protected Property<String> collection;
+
+    @Schema(
+        title = "Name of the search index"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    protected Property<String> index;
+
+    @Schema(
+        title = "Vector field of the index to search"
+    )
+    @NotNull
+    @PluginProperty(group = "main")
+    protected Property<String> vectorField;
+
+    @Schema(
+        title = "Query vector",
+        description = "Must have the dimension of the indexed field; use `from` instead to search many vectors."
+    )
+    @PluginProperty(group = "main")
+    protected Property<List<Float>> vector;
+
+    @Schema(
+        title = "Query vectors file URI",
+        description = "Kestra internal storage URI of an ion file holding one query vector per row, either as a plain array of numbers or as an object carrying it in `inputField`."
+    )
+    @PluginProperty(internalStorageURI = true, group = "main")
+    protected Property<String> from;
+
+    @Schema(
+        title = "Vector field of the rows of `from`",
+        description = "Used when the rows of `from` are objects."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<String> inputField = Property.ofValue("vector");
+
+    @Schema(
+        title = "Number of nearest neighbors to return per vector"
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "main")
+    protected Property<Integer> k = Property.ofValue(3);
+
+    @Schema(
+        title = "Pre-filter in the query string syntax",
+        description = "Only the documents matching it are candidates for the nearest neighbors, for example `category:shoes +stock:>0`."
+    )
+    @PluginProperty(group = "main")
+    protected Property<String> prefilter;
+
+    @Schema(
+        title = "Stored fields to return with each hit"
+    )
+    @PluginProperty(group = "processing")
+    protected Property<List<String>> fields;
+
+    @Schema(
+        title = "Fetch the matching documents",
+        description = "Reads the full document of each hit through the key-value service into its `content`."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "processing")
+    protected Property<Boolean> fetchDocuments = Property.ofValue(false);
+
+    @Schema(
+        title = "Maximum number of vectors searched at once",
+        description = "Query vectors are read from `from` only as searches complete; document fetches use the same bound."
+    )
+    @NotNull
+    @Builder.Default
+    @PluginProperty(group = "execution")
+    protected Property<Integer> concurrency = Property.ofValue(8);
+
+    @Schema(
+        title = "Search timeout",
+        description = "Defaults to the cluster environment search timeout."
+    )
+    @PluginProperty(group = "execution")
+    protected Property<Duration> searchTimeout;
+
+    @Override
+    public Output run(RunContext runContext) throws Exception {
+        Logger logger = runContext.logger();
+
+        List<Float> renderedVector = runContext.render(vector).asList(Float.class);
+        String renderedFrom = runContext.render(from).as(String.class).orElse(null);
+        if (renderedVector.isEmpty() == (renderedFrom == null)) {
+            throw new IllegalArgumentException("Exactly one of 'vector' or 'from' must be set");
+        }
+
+        String renderedIndex = runContext.render(index).as(String.class).orElseThrow();
+        String renderedVectorField = runContext.render(vectorField).as(String.class).orElseThrow();
+        String renderedInputField = runContext.render(inputField).as(String.class).orElseThrow();
+        int renderedK = runContext.render(k).as(Integer.class).orElseThrow();
+        SearchQuery renderedPrefilter = runContext.render(prefilter).as(String.class).map(SearchQuery::queryString).orElse(null);
+        int renderedConcurrency = runContext.render(concurrency).as(Integer.class).orElseThrow();
+
+        SearchOptions searchOptions = SearchOptions.searchOptions().limit(renderedK);
+        List<String> renderedFields = runContext.render(fields).asList(String.class);
+        if (!renderedFields.isEmpty()) {
+            searchOptions.fields(renderedFields.toArray(String[]::new));
+        }
+        runContext.render(searchTimeout).as(Duration.class).ifPresent(searchOptions::timeout);
+
+        Cluster cluster = connect(runContext);
+
+        try {
+            SearchHits hits = new SearchHits(runContext, cluster, bucket, scope, collection);
+            File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+            long start = System.nanoTime();
+
+            Long size;
+            AtomicLong queries = new AtomicLong();
+            try (
+                BufferedReader reader = renderedFrom == null ? null : new BufferedReader(new InputStreamReader(runContext.storage().getFile(new URI(renderedFrom))), FileSerde.BUFFER_SIZE);
+                RowWriter writer = RowWriter.of(Query.OutputFormat.ION, Query.Compression.NONE, new BufferedOutputStream(new FileOutputStream(tempFile), FileSerde.BUFFER_SIZE))
+            ) {
+                Flux<float[]> vectors = reader == null ? Flux.just(floats(renderedVector)) : FileSerde.readAll(reader).map(row -> vector(row, renderedInputField));
+                vectors = vectors.doOnNext(ignored -> queries.incrementAndGet());
+
+                Flux<Map<String, Object>> rows = vectors
+                    .index()
+                    .flatMapSequential(
+                        query -> {
+                            VectorQuery vectorQuery = VectorQuery.create(renderedVectorField, query.getT2()).numCandidates(renderedK);
+                            if (renderedPrefilter != null) {
+                                vectorQuery.prefilter(renderedPrefilter);
+                            }
+
+                            return hits.search(renderedIndex, SearchRequest.create(com.couchbase.client.java.search.vector.VectorSearch.create(vectorQuery)), searchOptions)
+                                .flatMapMany(ReactiveSearchResult::rows)
+                                .map(SearchHits::toRow)
+                                .doOnNext(row -> row.put("query", query.getT1()));
+                        },
+                        renderedConcurrency
+                    );
+
+                if (runContext.render(fetchDocuments).as(Boolean.class).orElseThrow()) {
+                    rows = hits.withDocuments(rows, renderedConcurrency);
+                }
+
+                size = rows
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(throwConsumer(writer::write))
+                    .count()
+                    .block();
+            }
+
+            Duration duration = Duration.ofNanos(System.nanoTime() - start);
+            runContext.metric(Counter.of("queries", queries.get()));
+            runContext.metric(Counter.of("records", size));
+            runContext.metric(Timer.of("duration", duration));
+
+            logger.info("Stored {} hits of {} query vectors in {}", size, queries.get(), duration);
+
+            return Output.builder()
+                .uri(runContext.storage().putFile(tempFile))
+                .size(size)
+                .build();
+        } finally {
+            close(cluster);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static float[] vector(Object row, String inputField) {
+        Object value = row instanceof Map<?, ?> map ? map.get(inputField) : row;
+        if (!(value instanceof List<?> list)) {
+            throw new IllegalArgumentException("Invalid query vector '" + value + "', expected an array of numbers" + (row instanceof Map ? " in '" + inputField + "'" : ""));
+        }
+
+        return floats((List<? extends Number>) list);
+    }
+
+    private static float[] floats(List<? extends Number> values) {
+        float[] floats = new float[values.size()];
+        for (int i = 0; i < floats.length; i++) {
+            floats[i] = values.get(i).floatValue();
+        }
+
+        return floats;
+    }
+
+    @Builder
+    @Getter
+    public static class Output implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Hits URI",
+            description = "Ion file with the top hits of each query vector, in the order of the vectors then of their score. The `query` field of each hit is the position of its vector in `from`."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "Number of hits stored"
+        )
+        private Long size;
+    }
+}
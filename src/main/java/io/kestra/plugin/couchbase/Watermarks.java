@@ -0,0 +1,83 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
+/**
+ * Helpers for the incremental polling mode of {@link Trigger}.
+ */
+final class Watermarks {
+    private Watermarks() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> withParameter(Object parameters, String name, Object watermark) {
+        if (parameters != null && !(parameters instanceof Map)) {
+            throw new IllegalArgumentException("Watermark polling requires named parameters, got " + parameters.getClass().getSimpleName());
+        }
+
+        Map<String, Object> named = parameters == null ? new HashMap<>() : new HashMap<>((Map<String, Object>) parameters);
+        named.put(name, watermark);
+        return named;
+    }
+
+    /**
+     * Highest value of the field among the returned rows, or the current watermark if none is higher.
+     */
+    static Object max(RunContext runContext, Query.Output output, String field, Object current) throws IOException {
+        if (output.getUri() != null) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())), FileSerde.BUFFER_SIZE)) {
+                return FileSerde.readAll(reader)
+                    .map(row -> value(row, field))
+                    .reduce(current, Watermarks::max)
+                    .block();
+            }
+        }
+
+        Stream<Map<String, Object>> rows;
+        if (output.getRows() != null) {
+            rows = output.getRows().stream();
+        } else if (output.getRow() != null) {
+            rows = Stream.of(output.getRow());
+        } else {
+            throw new IllegalArgumentException("Watermark polling requires the rows, fetchType must not be NONE");
+        }
+
+        return rows.map(row -> value(row, field)).reduce(current, Watermarks::max);
+    }
+
+    private static Object value(Object row, String field) {
+        if (row instanceof Map<?, ?> map && map.get(field) != null) {
+            return map.get(field);
+        }
+
+        throw new IllegalArgumentException("Missing watermark field '" + field + "' in row " + row);
+    }
+
+    /**
+     * Higher of two watermarks, numbers being compared by value and strings lexicographically, as ISO-8601 timestamps sort.
+     * Watermarks of different kinds are rejected: comparing them as strings would rank e.g. {@code 9} above {@code 10}.
+     */
+    static Object max(Object left, Object right) {
+        if (left instanceof Number leftNumber && right instanceof Number rightNumber) {
+            return new BigDecimal(leftNumber.toString()).compareTo(new BigDecimal(rightNumber.toString())) >= 0 ? left : right;
+        }
+
+        if (left instanceof String leftString && right instanceof String rightString) {
+            return leftString.compareTo(rightString) >= 0 ? left : right;
+        }
+
+        throw new IllegalArgumentException(
+            "Unable to compare watermarks '" + left + "' (" + left.getClass().getSimpleName() + ") and '" + right + "' (" + right.getClass().getSimpleName() + "), " +
+                "'initialWatermark' must have the same type as the watermark field, either a number or a string"
+        );
+    }
+}
@@ -0,0 +1,69 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class AnalyticsQueryTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void fetchOne() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output output = analyticsQueryBuilder()
+            .query("SELECT $a + $b AS total")
+            .parameters(Map.of("a", 1, "b", 2))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .priority(Property.ofValue(true))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+        assertThat(output.getRow(), hasEntry("total", 3));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void store() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output output = analyticsQueryBuilder()
+            .query("SELECT v AS value FROM [1, 2, 3] AS v")
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(3L));
+
+        List<Object> stored;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            stored = FileSerde.readAll(reader).collectList().block();
+        }
+
+        assertThat(stored.stream().map(row -> ((Map<String, Object>) row).get("value")).toList(), containsInAnyOrder(1, 2, 3));
+    }
+
+    private AnalyticsQuery.AnalyticsQueryBuilder<?, ?> analyticsQueryBuilder() {
+        return AnalyticsQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD);
+    }
+}
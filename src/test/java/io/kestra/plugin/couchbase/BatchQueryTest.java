@@ -0,0 +1,122 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class BatchQueryTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void parameterSets_FetchOne() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        BatchQuery.Output output = BatchQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_int = $int")
+            .parameterSets(List.of(Map.of("int", 3), Map.of("int", -1)))
+            .adhoc(Property.ofValue(false))
+            .concurrency(Property.ofValue(2))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getResults(), hasSize(2));
+        assertThat(output.getResults().get(0).getIndex(), is(0));
+        assertThat(output.getResults().get(0).getRow(), hasEntry("c_string", "Kestra Doc"));
+        assertThat(output.getResults().get(1).getRow(), nullValue());
+        assertThat(output.getResults().get(1).getSize(), is(0L));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void statements_Store() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        BatchQuery.Output output = BatchQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .queries(Property.ofValue(List.of(
+                "SELECT c_string FROM " + BUCKET + " WHERE c_int = 3",
+                "SELECT c_string FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` WHERE c_string = 'A collection doc'"
+            )))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getResults(), hasSize(2));
+        assertThat(output.getSize(), is(2L));
+
+        for (BatchQuery.Result result : output.getResults()) {
+            List<Object> stored;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(result.getUri())))) {
+                stored = FileSerde.readAll(reader).collectList().block();
+            }
+
+            assertThat(stored, hasSize(1));
+            assertThat((Map<String, Object>) stored.getFirst(), hasKey("c_string"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void store_WritesEveryRow() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        BatchQuery.Output output = BatchQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            // enough rows to span several buffers of the stored file
+            .query("SELECT v AS `value`, $tag AS tag FROM ARRAY_RANGE(0, 5000) AS v")
+            .parameterSets(List.of(Map.of("tag", "first"), Map.of("tag", "second")))
+            .concurrency(Property.ofValue(2))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(10000L));
+
+        for (BatchQuery.Result result : output.getResults()) {
+            List<Object> stored;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(result.getUri())))) {
+                stored = FileSerde.readAll(reader).collectList().block();
+            }
+
+            assertThat(stored, hasSize(5000));
+            assertThat(stored.stream().map(row -> ((Map<String, Object>) row).get("value")).toList(), is(IntStream.range(0, 5000).boxed().toList()));
+            assertThat(stored.stream().map(row -> ((Map<String, Object>) row).get("tag")).distinct().toList(), is(List.of(((Map<String, Object>) result.getParameters()).get("tag"))));
+        }
+    }
+
+    @Test
+    void requiresOneStatementSource() {
+        BatchQuery task = BatchQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContextFactory.of()));
+    }
+}
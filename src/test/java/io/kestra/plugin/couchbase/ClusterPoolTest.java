@@ -0,0 +1,119 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.couchbase.client.java.Cluster;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class ClusterPoolTest extends CouchbaseTest {
+    private static final ClusterPool.Key KEY = new ClusterPool.Key(CONNECTION_STRING, USER, PASSWORD, ClusterEnvironmentConfig.Rendered.DEFAULT);
+
+    @Test
+    void reusesClusterForSameKey() {
+        ClusterPool pool = new ClusterPool(4, Duration.ZERO, Duration.ofSeconds(30));
+
+        Cluster first = pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD));
+        pool.release(first);
+        Cluster second = pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD));
+
+        assertThat(second, sameInstance(first));
+        assertThat(pool.size(), is(1));
+
+        pool.release(second);
+        pool.evictIdle();
+    }
+
+    @Test
+    void evictsIdleClusters() {
+        ClusterPool pool = new ClusterPool(4, Duration.ZERO, Duration.ofSeconds(30));
+
+        Cluster first = pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD));
+
+        // a leased cluster is never evicted
+        pool.evictIdle();
+        assertThat(pool.size(), is(1));
+
+        pool.release(first);
+        pool.evictIdle();
+        assertThat(pool.size(), is(0));
+
+        Cluster second = pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD));
+        assertThat(second, not(sameInstance(first)));
+
+        pool.release(second);
+        pool.evictIdle();
+    }
+
+    @Test
+    void boundsPoolSize() {
+        ClusterPool pool = new ClusterPool(1, Duration.ZERO, Duration.ofSeconds(30));
+
+        Cluster first = pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD));
+        pool.release(first);
+
+        ClusterPool.Key otherKey = new ClusterPool.Key("couchbase://localhost", USER, PASSWORD, ClusterEnvironmentConfig.Rendered.DEFAULT);
+        Cluster second = pool.acquire(otherKey, () -> Cluster.connect("couchbase://localhost", USER, PASSWORD));
+
+        assertThat(pool.size(), is(1));
+
+        pool.release(second);
+        pool.evictIdle();
+    }
+
+    @Test
+    void connectsOutsideThePoolLock() throws Exception {
+        ClusterPool pool = new ClusterPool(4, Duration.ZERO, Duration.ofSeconds(30));
+        CountDownLatch connecting = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+
+        CompletableFuture<Cluster> slow = CompletableFuture.supplyAsync(() -> pool.acquire(KEY, () -> {
+            connecting.countDown();
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Cluster.connect(CONNECTION_STRING, USER, PASSWORD);
+        }));
+        connecting.await();
+
+        // another cluster is handed out while the first one is still connecting
+        ClusterPool.Key otherKey = new ClusterPool.Key("couchbase://localhost", USER, PASSWORD, ClusterEnvironmentConfig.Rendered.DEFAULT);
+        Cluster other = pool.acquire(otherKey, () -> Cluster.connect("couchbase://localhost", USER, PASSWORD));
+        assertThat(slow.isDone(), is(false));
+
+        proceed.countDown();
+        Cluster first = slow.get();
+        assertThat(pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD)), sameInstance(first));
+
+        pool.release(first);
+        pool.release(first);
+        pool.release(other);
+        pool.evictIdle();
+    }
+
+    @Test
+    void dropsFailedConnections() {
+        ClusterPool pool = new ClusterPool(4, Duration.ZERO, Duration.ofSeconds(30));
+
+        assertThrows(IllegalStateException.class, () -> pool.acquire(KEY, () -> {
+            throw new IllegalStateException("unreachable");
+        }));
+        assertThat(pool.size(), is(0));
+
+        Cluster cluster = pool.acquire(KEY, () -> Cluster.connect(CONNECTION_STRING, USER, PASSWORD));
+        assertThat(pool.size(), is(1));
+
+        pool.release(cluster);
+        pool.evictIdle();
+    }
+}
@@ -1,5 +1,14 @@
 package io.kestra.plugin.couchbase;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
+
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
+
 public class CouchbaseTest {
     protected static final String USER = "Administrator";
     protected static final String PASSWORD = "password";
@@ -14,4 +23,15 @@ public class CouchbaseTest {
             .username(USER)
             .password(PASSWORD);
     }
+
+    protected static URI storeRows(RunContext runContext, List<?> rows) throws Exception {
+        File file = runContext.workingDir().createTempFile(".ion").toFile();
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            for (Object row : rows) {
+                FileSerde.write(outputStream, row);
+            }
+        }
+
+        return runContext.storage().putFile(file);
+    }
 }
@@ -0,0 +1,83 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class FanOutQueryTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void tagsRowsWithTheirTarget() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        FanOutQuery.Output output = FanOutQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .query("SELECT v * $factor AS `value`, 'ignored' AS target FROM [1, 2, 3] AS v")
+            .parameters(Map.of("factor", 1))
+            .targets(List.of(
+                FanOutQuery.Target.builder()
+                    .name(Property.ofValue("default"))
+                    .bucket(Property.ofValue(BUCKET))
+                    .build(),
+                FanOutQuery.Target.builder()
+                    .name(Property.ofValue("scoped"))
+                    .bucket(Property.ofValue(BUCKET))
+                    .scope(Property.ofValue(SCOPE))
+                    .parameters(Map.of("factor", 10))
+                    .build()
+            ))
+            .concurrencyPerCluster(Property.ofValue(1))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(6L));
+        assertThat(output.getSizes(), allOf(hasEntry("default", 3L), hasEntry("scoped", 3L)));
+
+        List<Object> stored;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            stored = FileSerde.readAll(reader).collectList().block();
+        }
+
+        assertThat(
+            stored.stream().map(row -> ((Map<String, Object>) row).get("target") + ":" + ((Map<String, Object>) row).get("value")).toList(),
+            containsInAnyOrder("default:1", "default:2", "default:3", "scoped:10", "scoped:20", "scoped:30")
+        );
+    }
+
+    @Test
+    void requiresUniqueTargetNames() {
+        FanOutQuery task = FanOutQuery.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .query("SELECT 1 AS target")
+            .targets(List.of(
+                FanOutQuery.Target.builder().bucket(Property.ofValue(BUCKET)).build(),
+                FanOutQuery.Target.builder().bucket(Property.ofValue(BUCKET)).build()
+            ))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContextFactory.of()));
+    }
+}
@@ -0,0 +1,117 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.codec.RawBinaryTranscoder;
+import com.couchbase.client.java.kv.UpsertOptions;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.IdUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class GetTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void fromKeys() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Get.Output output = getBuilder()
+            .keys(Property.ofValue(List.of("a-scoped-collection-doc", "does-not-exist")))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+        assertThat(output.getMissingCount(), is(1L));
+
+        List<Object> found = readAll(runContext, output.getUri());
+        assertThat(found, hasSize(1));
+        Map<String, Object> document = (Map<String, Object>) found.getFirst();
+        assertThat(document.get("id"), is("a-scoped-collection-doc"));
+        assertThat((Map<String, Object>) document.get("content"), hasEntry("c_string", "A collection doc"));
+
+        assertThat(readAll(runContext, output.getMissingUri()), contains("does-not-exist"));
+    }
+
+    @Test
+    void fromFile() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        URI from = storeRows(runContext, List.of(
+            Map.of("id", "a-scoped-collection-doc"),
+            Map.of("id", "does-not-exist")
+        ));
+
+        Get.Output output = getBuilder()
+            .from(Property.ofValue(from.toString()))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+        assertThat(output.getMissingCount(), is(1L));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void binaryDocument() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String id = "binary-" + IdUtils.create();
+        byte[] content = "<aField>someValue</aField>".getBytes(StandardCharsets.UTF_8);
+
+        try (Cluster session = Cluster.connect(CONNECTION_STRING, USER, PASSWORD)) {
+            session.waitUntilReady(Duration.ofSeconds(10));
+            session.bucket(BUCKET).scope(SCOPE).collection(COLLECTION)
+                .upsert(id, content, UpsertOptions.upsertOptions().transcoder(RawBinaryTranscoder.INSTANCE));
+        }
+
+        Get.Output output = getBuilder()
+            .keys(Property.ofValue(List.of(id, "a-scoped-collection-doc")))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(2L));
+
+        Map<String, Object> binary = readAll(runContext, output.getUri()).stream()
+            .map(row -> (Map<String, Object>) row)
+            .filter(row -> id.equals(row.get("id")))
+            .findFirst()
+            .orElseThrow();
+        assertThat(binary.get("binary"), is(content));
+    }
+
+    private Get.GetBuilder<?, ?> getBuilder() {
+        return Get.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION));
+    }
+
+    private static List<Object> readAll(RunContext runContext, URI uri) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(uri)))) {
+            return FileSerde.readAll(reader).collectList().block();
+        }
+    }
+}
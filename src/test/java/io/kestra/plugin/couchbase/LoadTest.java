@@ -0,0 +1,120 @@
+package io.kestra.plugin.couchbase;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class LoadTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void upsertFromInternalStorage() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        URI from = storeRows(runContext, List.of(
+            Map.of("id", "load-1", "c_string", "First loaded doc", "c_int", 1),
+            Map.of("id", "load-2", "c_string", "Second loaded doc", "c_int", 2)
+        ));
+
+        Load.Output output = Load.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION))
+            .from(Property.ofValue(from.toString()))
+            .key("{{ row.id }}")
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(2L));
+        assertThat(output.getErrorCount(), is(0L));
+        assertThat(output.getErrorsUri(), nullValue());
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string, c_int FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` USE KEYS 'load-2'")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .build()
+            .run(runContext);
+
+        assertThat(queryResult.getRow(), hasEntry("c_string", "Second loaded doc"));
+        assertThat(queryResult.getRow(), hasEntry("c_int", 2));
+    }
+
+    @Test
+    void queryAtPlusSeesLoadedDocs() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        URI from = storeRows(runContext, List.of(
+            Map.of("id", "load-at-plus", "c_string", "At plus doc")
+        ));
+
+        Load.Output output = Load.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION))
+            .from(Property.ofValue(from.toString()))
+            .key("{{ row.id }}")
+            .build()
+            .run(runContext);
+
+        assertThat(output.getMutationState(), hasKey(BUCKET));
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` WHERE c_string = 'At plus doc'")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .scanConsistency(Property.ofValue(QueryInterface.ScanConsistency.AT_PLUS))
+            .consistentWith(Property.ofValue(output.getMutationState()))
+            .readonly(Property.ofValue(true))
+            .build()
+            .run(runContext);
+
+        assertThat(queryResult.getRow(), hasEntry("c_string", "At plus doc"));
+    }
+
+    @Test
+    void insertCollectsErrors() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        URI from = storeRows(runContext, List.of(
+            Map.of("id", "a-scoped-collection-doc", "c_string", "Already exists"),
+            Map.of("id", "load-insert-1", "c_string", "New doc")
+        ));
+
+        Load.Output output = Load.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION))
+            .from(Property.ofValue(from.toString()))
+            .key("{{ row.id }}")
+            .writeMode(Property.ofValue(Load.WriteMode.INSERT))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+        assertThat(output.getErrorCount(), is(1L));
+        assertThat(output.getErrorsUri(), notNullValue());
+    }
+}
@@ -0,0 +1,46 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class QueryPreflightTest {
+    @Test
+    void findsPrimaryAndUnboundedIndexScans() {
+        assertThat(fullScans(Map.of("#operator", "PrimaryScan3", "keyspace", "orders", "index", "#primary")), contains("PrimaryScan3 on `orders`"));
+
+        // IS NOT MISSING on the leading key
+        assertThat(fullScans(indexScan(List.of(Map.of("inclusion", 1, "index_key", "`customer`", "low", "missing")))), hasSize(1));
+        // IS NOT NULL on the leading key
+        assertThat(fullScans(indexScan(List.of(Map.of("inclusion", 0, "index_key", "`customer`", "low", "null")))), hasSize(1));
+        assertThat(fullScans(indexScan(List.of(Map.of("inclusion", 0, "index_key", "`customer`")))), hasSize(1));
+    }
+
+    @Test
+    void acceptsBoundedIndexScans() {
+        assertThat(fullScans(indexScan(List.of(Map.of("inclusion", 3, "index_key", "`customer`", "low", "\"c-42\"", "high", "\"c-42\"")))), empty());
+        assertThat(fullScans(indexScan(List.of(Map.of("inclusion", 1, "index_key", "`total`", "low", "100")))), empty());
+    }
+
+    private static List<String> fullScans(Map<String, Object> operator) {
+        List<String> found = new ArrayList<>();
+        QueryPreflight.fullScans(Map.of("plan", Map.of("#operator", "Sequence", "~children", List.of(operator))), found);
+        return found;
+    }
+
+    private static Map<String, Object> indexScan(List<Map<String, Object>> ranges) {
+        return Map.of(
+            "#operator", "IndexScan3",
+            "bucket", "shop",
+            "scope", "sales",
+            "keyspace", "orders",
+            "index", "idx_customer",
+            "spans", List.of(Map.of("exact", true, "range", ranges))
+        );
+    }
+}
@@ -1,10 +1,18 @@
 package io.kestra.plugin.couchbase;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
+import org.apache.avro.file.DataFileStream;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -13,19 +21,24 @@ import org.junit.jupiter.params.provider.CsvSource;
 import com.couchbase.client.java.Cluster;
 import com.couchbase.client.java.codec.RawBinaryTranscoder;
 import com.couchbase.client.java.kv.UpsertOptions;
+import com.couchbase.client.java.query.QueryProfile;
 
 import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.executions.AbstractMetricEntry;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.common.FetchType;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.serializers.JacksonMapper;
 import io.kestra.core.storages.StorageInterface;
 
 import jakarta.inject.Inject;
 
+import static io.kestra.core.utils.Rethrow.throwFunction;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * This test will only test the main task, this allow you to send any input
@@ -114,6 +127,66 @@ class QueryTest extends CouchbaseTest {
         assertThat(row.get("c_int"), is(3));
     }
 
+    @Test
+    void preparedStatement_ReusesPlan() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query query = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_int = $int")
+            .parameters(Map.of("int", 3))
+            .adhoc(Property.ofValue(false))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .build();
+
+        query.run(runContext);
+        Query.Output queryResult = query.run(runContext);
+
+        assertThat(queryResult.getRow().get("c_string"), is("Kestra Doc"));
+        assertThat(
+            runContext.metrics().stream().map(AbstractMetricEntry::getName).toList(),
+            hasItem("prepared.cache.hit.estimated")
+        );
+    }
+
+    @Test
+    void profiledQuery_ReportsPhaseMetrics() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_int = 3")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .profile(Property.ofValue(QueryProfile.TIMINGS))
+            .build().run(runContext);
+
+        assertThat(queryResult.getRow().get("c_string"), is("Kestra Doc"));
+        assertThat(queryResult.getProfile(), notNullValue());
+        assertThat(
+            runContext.metrics().stream().map(AbstractMetricEntry::getName).toList(),
+            hasItems("connect.duration", "query.duration", "decode.duration", "server.elapsed.duration", "server.result.count")
+        );
+    }
+
+    @Test
+    void tunedEnvironment_Query() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_int = 3")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .environment(ClusterEnvironmentConfig.builder()
+                .io(ClusterEnvironmentConfig.Io.builder()
+                    .numKvConnections(Property.ofValue(2))
+                    .maxHttpConnections(Property.ofValue(8))
+                    .build())
+                .timeout(ClusterEnvironmentConfig.Timeout.builder()
+                    .queryTimeout(Property.ofValue(Duration.ofSeconds(30)))
+                    .build())
+                .build())
+            .build().run(runContext);
+
+        assertThat(queryResult.getRow().get("c_string"), is("Kestra Doc"));
+    }
+
     @Test
     void simpleQuery_FetchAll() throws Exception {
         RunContext runContext = runContextFactory.of();
@@ -205,5 +278,297 @@ class QueryTest extends CouchbaseTest {
         Query.Output queryResult = query.run(runContext);
 
         assertThat(queryResult.getSize(), is(1L));
+
+        List<Object> stored;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(queryResult.getUri())))) {
+            stored = FileSerde.readAll(reader).collectList().block();
+        }
+
+        assertThat(stored, hasSize(1));
+        Map<String, Object> row = (Map<String, Object>) ((Map<String, Object>) stored.getFirst()).get(COLLECTION);
+        assertThat(row.get("c_string"), is("A collection doc"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"ION", "JSONL"})
+    @SuppressWarnings("unchecked")
+    void passthroughQuery_StoresRawRows(Query.OutputFormat outputFormat) throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string, c_int FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` WHERE c_string='A collection doc'")
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .outputFormat(Property.ofValue(outputFormat))
+            .passthrough(Property.ofValue(true))
+            .build().run(runContext);
+
+        assertThat(queryResult.getSize(), is(1L));
+
+        List<Object> stored;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(queryResult.getUri())))) {
+            stored = switch (outputFormat) {
+                case ION -> FileSerde.readAll(reader).collectList().block();
+                case JSONL -> reader.lines().map(throwFunction(line -> JacksonMapper.ofJson().readValue(line, Object.class))).collect(Collectors.toList());
+            };
+        }
+
+        assertThat(stored, hasSize(1));
+        assertThat(((Map<String, Object>) stored.getFirst()).get("c_string"), is("A collection doc"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void passthroughQuery_StoresEveryIonRow() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            // enough rows to span several buffers of the stored file
+            .query("SELECT v AS `value` FROM ARRAY_RANGE(0, 5000) AS v")
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .outputFormat(Property.ofValue(Query.OutputFormat.ION))
+            .passthrough(Property.ofValue(true))
+            .build().run(runContext);
+
+        assertThat(queryResult.getSize(), is(5000L));
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(queryResult.getUri())))) {
+            lines = reader.lines().toList();
+        }
+
+        // one row per line, as ForEachItem splits them
+        assertThat(lines, hasSize(5000));
+        assertThat(
+            lines.stream().map(throwFunction(line -> ((Map<String, Object>) JacksonMapper.ofIon().readValue(line, Object.class)).get("value"))).toList(),
+            is(IntStream.range(0, 5000).boxed().toList())
+        );
+    }
+
+    @Test
+    void csvQuery_Gzip() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` WHERE c_string='A collection doc'")
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .outputFormat(Property.ofValue(Query.OutputFormat.CSV))
+            .compression(Property.ofValue(Query.Compression.GZIP))
+            .build().run(runContext);
+
+        assertThat(queryResult.getUri().getPath(), endsWith(".csv.gz"));
+
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(runContext.storage().getFile(queryResult.getUri()))))) {
+            lines = reader.lines().toList();
+        }
+
+        assertThat(lines, contains("c_string", "A collection doc"));
+    }
+
+    @Test
+    void avroQuery_InfersSchemaFromFirstRow() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output queryResult = authentifiedQueryBuilder()
+            .query("SELECT c_string, 42 AS c_long, 1.5 AS c_double, {\"a\": 1} AS c_object FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` WHERE c_string='A collection doc'")
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .outputFormat(Property.ofValue(Query.OutputFormat.AVRO))
+            .compression(Property.ofValue(Query.Compression.ZSTD))
+            .build().run(runContext);
+
+        List<GenericRecord> records = new ArrayList<>();
+        try (DataFileStream<GenericRecord> stream = new DataFileStream<>(runContext.storage().getFile(queryResult.getUri()), new GenericDatumReader<>())) {
+            stream.forEach(records::add);
+        }
+
+        assertThat(records, hasSize(1));
+        assertThat(records.getFirst().get("c_string").toString(), is("A collection doc"));
+        assertThat(records.getFirst().get("c_long"), is(42L));
+        assertThat(records.getFirst().get("c_double"), is(1.5));
+        assertThat(records.getFirst().get("c_object").toString(), is("{\"a\":1}"));
+    }
+
+    @Test
+    void avroQuery_WidensDriftingTypes() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output sampled = authentifiedQueryBuilder()
+            .query("SELECT v AS n, CASE WHEN v = 2 THEN 2.5 ELSE v END AS x, CASE WHEN v = 3 THEN 'late' ELSE MISSING END AS late FROM [1, 2, 3] AS v")
+            .outputFormat(Property.ofValue(Query.OutputFormat.AVRO))
+            .build().run(runContext);
+
+        List<GenericRecord> records = avroRecords(runContext, sampled);
+        assertThat(records.stream().map(record -> record.get("x")).toList(), is(List.of(1.0, 2.5, 3.0)));
+        assertThat(records.getLast().get("late").toString(), is("late"));
+        assertThat(records.getFirst().get("late"), nullValue());
+
+        // a value past the schema sample that does not fit its column falls back to a string
+        Query.Output drifting = authentifiedQueryBuilder()
+            .query("SELECT v AS n, CASE WHEN v = 1500 THEN 'text' ELSE v END AS x FROM ARRAY_RANGE(0, 2000) AS v")
+            .outputFormat(Property.ofValue(Query.OutputFormat.AVRO))
+            .build().run(runContext);
+
+        records = avroRecords(runContext, drifting);
+        assertThat(records, hasSize(2000));
+        assertThat(records.get(1499).get("x"), is(1499L));
+        assertThat(records.get(1500).get("x").toString(), is("text"));
+    }
+
+    private static List<GenericRecord> avroRecords(RunContext runContext, Query.Output output) throws Exception {
+        List<GenericRecord> records = new ArrayList<>();
+        try (DataFileStream<GenericRecord> stream = new DataFileStream<>(runContext.storage().getFile(output.getUri()), new GenericDatumReader<>())) {
+            stream.forEach(records::add);
+        }
+
+        return records;
+    }
+
+    @Test
+    void chunkedQuery_OnePagePerRow() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query query = authentifiedQueryBuilder()
+            .query("SELECT META().id AS id, c_string FROM " + BUCKET + " WHERE META().id > $lastKey ORDER BY META().id LIMIT $size")
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .chunking(Query.Chunking.builder()
+                .size(Property.ofValue(1))
+                .key(Property.ofValue("id"))
+                .initialKey("")
+                .build())
+            .build();
+
+        Query.Output queryResult = query.run(runContext);
+
+        assertThat(queryResult.getSize(), greaterThanOrEqualTo(1L));
+        assertThat(queryResult.getUris(), hasSize(queryResult.getSize().intValue()));
+        assertThat(queryResult.getUri(), nullValue());
+    }
+
+    @Test
+    void chunkedQuery_OffsetMerged() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query query = authentifiedQueryBuilder()
+            .query("SELECT META().id AS id, c_string FROM " + BUCKET + " ORDER BY META().id LIMIT $size OFFSET $offset")
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .chunking(Query.Chunking.builder()
+                .size(Property.ofValue(1))
+                .key(Property.ofValue("id"))
+                .mode(Property.ofValue(Query.ChunkingMode.OFFSET))
+                .parallelism(Property.ofValue(4))
+                .merge(Property.ofValue(true))
+                .build())
+            .build();
+
+        Query.Output queryResult = query.run(runContext);
+
+        List<Object> stored;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(queryResult.getUri())))) {
+            stored = FileSerde.readAll(reader).collectList().block();
+        }
+
+        assertThat(stored, hasSize(queryResult.getSize().intValue()));
+    }
+
+    @Test
+    void chunkedQuery_RequiresPageParameters() {
+        Query query = authentifiedQueryBuilder()
+            .query("SELECT META().id AS id, c_string FROM " + BUCKET)
+            .fetchType(Property.ofValue(FetchType.STORE))
+            .chunking(Query.Chunking.builder()
+                .size(Property.ofValue(1))
+                .key(Property.ofValue("id"))
+                .initialKey("")
+                .build())
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> query.run(runContextFactory.of()));
+    }
+
+    @Test
+    void cachedQuery_ReusesOutput() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query query = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_string = $c_string")
+            .parameters(Map.of("c_string", "Kestra Doc"))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .cache(Query.Cache.builder().ttl(Property.ofValue(Duration.ofMinutes(1))).build())
+            .build();
+
+        Query.Output first = query.run(runContext);
+        Query.Output second = query.run(runContext);
+
+        assertThat(first.getRow(), hasEntry("c_string", "Kestra Doc"));
+        assertThat(second, sameInstance(first));
+
+        Query.Output otherParameters = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_string = $c_string")
+            .parameters(Map.of("c_string", "Another Doc"))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .cache(Query.Cache.builder().ttl(Property.ofValue(Duration.ofMinutes(1))).build())
+            .build()
+            .run(runContext);
+
+        assertThat(otherParameters, not(sameInstance(first)));
+    }
+
+    @Test
+    void cachedQuery_BypassedForConsistentReads() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query query = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " USE KEYS 'a-doc'")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .scanConsistency(Property.ofValue(QueryInterface.ScanConsistency.REQUEST_PLUS))
+            .cache(Query.Cache.builder().ttl(Property.ofValue(Duration.ofMinutes(1))).build())
+            .build();
+
+        Query.Output first = query.run(runContext);
+        Query.Output second = query.run(runContext);
+
+        assertThat(second.getRow(), hasEntry("c_string", "Kestra Doc"));
+        assertThat(second, not(sameInstance(first)));
+    }
+
+    @Test
+    void preflight_FailsOnPrimaryScan() {
+        Query query = authentifiedQueryBuilder()
+            // only the primary index can serve this filter
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_string = $c_string")
+            .parameters(Map.of("c_string", "Kestra Doc"))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .preflight(Query.Preflight.builder().build())
+            .build();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> query.run(runContextFactory.of()));
+        assertThat(exception.getMessage(), containsString("PrimaryScan"));
+    }
+
+    @Test
+    void preflight_WarnsAndRuns() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Query.Output fullScan = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " WHERE c_string = $c_string")
+            .parameters(Map.of("c_string", "Kestra Doc"))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .preflight(Query.Preflight.builder().onFullScan(Property.ofValue(Query.PreflightAction.WARN)).build())
+            .build()
+            .run(runContext);
+
+        assertThat(fullScan.getRow(), hasEntry("c_string", "Kestra Doc"));
+        assertThat(fullScan.getFullScans(), hasItem(containsString("PrimaryScan")));
+        assertThat(fullScan.getRecommendedIndexes(), notNullValue());
+
+        Query.Output keyScan = authentifiedQueryBuilder()
+            .query("SELECT c_string FROM " + BUCKET + " USE KEYS 'a-doc'")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .preflight(Query.Preflight.builder().build())
+            .build()
+            .run(runContext);
+
+        assertThat(keyScan.getRow(), hasEntry("c_string", "Kestra Doc"));
+        assertThat(keyScan.getFullScans(), nullValue());
     }
 }
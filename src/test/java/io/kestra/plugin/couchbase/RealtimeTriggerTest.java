@@ -0,0 +1,131 @@
+package io.kestra.plugin.couchbase;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+
+import jakarta.inject.Inject;
+import reactor.core.publisher.Flux;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Runs the trigger against an in-process change feed, the DCP client itself is exercised by the Couchbase SDK test suite.
+ */
+@KestraTest
+class RealtimeTriggerTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void batchesAndCheckpointsChanges() throws Exception {
+        // ids of their own, so no checkpoint stored by a previous run is resumed from
+        RunContext runContext = runContextFactory.of(Map.of("flow", Map.of("id", "realtime-" + IdUtils.create(), "namespace", "io.kestra.tests", "tenantId", "main")));
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("changes-" + IdUtils.create())
+            .type(RealtimeTrigger.class.getName())
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .batchSize(Property.ofValue(2))
+            .batchDuration(Property.ofValue(Duration.ofMillis(200)))
+            .build();
+
+        StandInChangeFeed feed = new StandInChangeFeed(List.of(
+            change(0, 1, ChangeFeed.ChangeType.MUTATION, "doc-1"),
+            change(1, 1, ChangeFeed.ChangeType.MUTATION, "doc-2"),
+            change(0, 2, ChangeFeed.ChangeType.DELETION, "doc-1")
+        ));
+
+        List<RealtimeTrigger.Output> outputs = trigger.outputs(runContext, feed).collectList().block();
+
+        assertThat(outputs, hasSize(2));
+        assertThat(outputs.getFirst().getSize(), is(2L));
+        assertThat(outputs.getFirst().getChanges().getFirst().get("id"), is("doc-1"));
+        assertThat((Map<String, Object>) outputs.getFirst().getChanges().getFirst().get("content"), hasEntry("c_string", "doc-1"));
+        assertThat(outputs.get(1).getChanges().getFirst().get("type"), is("DELETION"));
+        assertThat(feed.closed, is(true));
+
+        // a restarted trigger resumes every partition after its last change
+        StandInChangeFeed resumed = new StandInChangeFeed(List.of());
+        trigger.outputs(runContext, resumed).collectList().block();
+
+        assertThat(resumed.checkpoints.get(0).seqno(), is(2L));
+        assertThat(resumed.checkpoints.get(1).seqno(), is(1L));
+    }
+
+    @Test
+    void checkpointsOnlyDeliveredBatches() throws Exception {
+        RunContext runContext = runContextFactory.of(Map.of("flow", Map.of("id", "realtime-" + IdUtils.create(), "namespace", "io.kestra.tests", "tenantId", "main")));
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("delivery-" + IdUtils.create())
+            .type(RealtimeTrigger.class.getName())
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .batchSize(Property.ofValue(1))
+            .build();
+
+        StandInChangeFeed feed = new StandInChangeFeed(List.of(
+            change(0, 1, ChangeFeed.ChangeType.MUTATION, "doc-1"),
+            change(0, 2, ChangeFeed.ChangeType.MUTATION, "doc-2")
+        ));
+
+        List<Boolean> checkpointedOnDelivery = new ArrayList<>();
+        trigger.outputs(runContext, feed)
+            .doOnNext(throwConsumer(output -> checkpointedOnDelivery.add(TriggerState.get(runContext, trigger.getId(), "checkpoints").isPresent())))
+            .blockLast();
+
+        // a batch is not checkpointed before it is handed downstream
+        assertThat(checkpointedOnDelivery, contains(false, true));
+
+        StandInChangeFeed resumed = new StandInChangeFeed(List.of());
+        trigger.outputs(runContext, resumed).collectList().block();
+
+        assertThat(resumed.checkpoints.get(0).seqno(), is(2L));
+    }
+
+    private static ChangeFeed.Change change(int partition, long seqno, ChangeFeed.ChangeType type, String id) {
+        byte[] content = type == ChangeFeed.ChangeType.MUTATION ? ("{\"c_string\":\"" + id + "\"}").getBytes(StandardCharsets.UTF_8) : null;
+
+        return new ChangeFeed.Change(partition, new ChangeFeed.Checkpoint(42, seqno, seqno, seqno, 0), type, id, seqno, "_default", content);
+    }
+
+    private static class StandInChangeFeed implements ChangeFeed {
+        private final List<Change> changes;
+        private Map<Integer, Checkpoint> checkpoints;
+        private boolean closed;
+
+        private StandInChangeFeed(List<Change> changes) {
+            this.changes = new ArrayList<>(changes);
+        }
+
+        @Override
+        public Flux<Change> stream(Map<Integer, Checkpoint> checkpoints, StartFrom startFrom) {
+            this.checkpoints = Map.copyOf(checkpoints);
+            return Flux.fromIterable(changes);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
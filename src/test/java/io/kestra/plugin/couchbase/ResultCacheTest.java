@@ -0,0 +1,53 @@
+package io.kestra.plugin.couchbase;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class ResultCacheTest extends CouchbaseTest {
+    @Test
+    void returnsCachedOutputUntilExpired() {
+        ResultCache cache = new ResultCache();
+        Query.Output output = Query.Output.builder().size(1L).build();
+
+        cache.put(key("SELECT 1"), output, Duration.ofMinutes(1), 10);
+        assertThat(cache.get(key("SELECT 1")).orElseThrow(), sameInstance(output));
+        assertThat(cache.get(key("SELECT 2")).isPresent(), is(false));
+
+        cache.put(key("SELECT 3"), output, Duration.ofMillis(-1), 10);
+        assertThat(cache.get(key("SELECT 3")).isPresent(), is(false));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        ResultCache cache = new ResultCache();
+        Query.Output output = Query.Output.builder().size(1L).build();
+
+        cache.put(key("SELECT 1"), output, Duration.ofMinutes(1), 2);
+        cache.put(key("SELECT 2"), output, Duration.ofMinutes(1), 2);
+        cache.get(key("SELECT 1"));
+        cache.put(key("SELECT 3"), output, Duration.ofMinutes(1), 2);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(key("SELECT 1")).isPresent(), is(true));
+        assertThat(cache.get(key("SELECT 2")).isPresent(), is(false));
+    }
+
+    @Test
+    void hashesCredentials() {
+        assertThat(ResultCache.credentials(USER, PASSWORD), is(ResultCache.credentials(USER, PASSWORD)));
+        assertThat(ResultCache.credentials(USER, PASSWORD), not(containsString(PASSWORD)));
+        assertThat(ResultCache.credentials(USER, PASSWORD), not(ResultCache.credentials(USER, PASSWORD + "-other")));
+    }
+
+    private static ResultCache.Key key(String query) {
+        return new ResultCache.Key("main", "io.kestra.tests", CONNECTION_STRING, USER, ResultCache.credentials(USER, PASSWORD), query, "null", "[FETCH]");
+    }
+}
@@ -0,0 +1,100 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.couchbase.client.java.Cluster;
+import com.couchbase.client.java.codec.RawBinaryTranscoder;
+import com.couchbase.client.java.kv.UpsertOptions;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.IdUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@KestraTest
+class ScanTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void rangeScan() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Scan.Output output = scanBuilder()
+            .concurrency(Property.ofValue(4))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), greaterThanOrEqualTo(1L));
+        assertThat(output.getUri(), notNullValue());
+    }
+
+    @Test
+    void prefixScan() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Scan.Output output = scanBuilder()
+            .scanType(Property.ofValue(Scan.ScanMode.PREFIX))
+            .prefix(Property.ofValue("a-scoped-"))
+            .idsOnly(Property.ofValue(true))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void binaryDocument() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String prefix = "binary-" + IdUtils.create() + "-";
+        byte[] content = "<aField>someValue</aField>".getBytes(StandardCharsets.UTF_8);
+
+        try (Cluster session = Cluster.connect(CONNECTION_STRING, USER, PASSWORD)) {
+            session.waitUntilReady(Duration.ofSeconds(10));
+            session.bucket(BUCKET).scope(SCOPE).collection(COLLECTION)
+                .upsert(prefix + "doc", content, UpsertOptions.upsertOptions().transcoder(RawBinaryTranscoder.INSTANCE));
+        }
+
+        Scan.Output output = scanBuilder()
+            .scanType(Property.ofValue(Scan.ScanMode.PREFIX))
+            .prefix(Property.ofValue(prefix))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+
+        List<Object> rows;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            rows = FileSerde.readAll(reader).collectList().block();
+        }
+
+        Map<String, Object> row = (Map<String, Object>) rows.getFirst();
+        assertThat(row.get("binary"), is(content));
+        assertThat(row.containsKey("content"), is(false));
+    }
+
+    private Scan.ScanBuilder<?, ?> scanBuilder() {
+        return Scan.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION));
+    }
+}
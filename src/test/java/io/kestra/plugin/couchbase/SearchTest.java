@@ -0,0 +1,92 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class SearchTest extends CouchbaseTest {
+    private static final String INDEX = "kestra-fts";
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void storesHitsWithFieldsAndDocuments() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Search.Output output = searchBuilder()
+            .bucket(Property.ofValue(BUCKET))
+            .queryString(Property.ofValue("c_string:kestra"))
+            .fields(Property.ofValue(List.of("c_string")))
+            .facets(Map.of("strings", Search.Facet.builder().field(Property.ofValue("c_string")).build()))
+            .pageSize(Property.ofValue(1))
+            .fetchDocuments(Property.ofValue(true))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getTotalHits(), greaterThanOrEqualTo(1L));
+        assertThat(output.getSize(), is(output.getTotalHits()));
+        assertThat(output.getTook(), notNullValue());
+        assertThat(output.getFacets(), hasKey("strings"));
+
+        List<Map<String, Object>> hits;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(output.getUri())))) {
+            hits = FileSerde.readAll(reader).map(row -> (Map<String, Object>) row).collectList().block();
+        }
+
+        Map<String, Object> hit = hits.stream().filter(row -> "a-doc".equals(row.get("id"))).findFirst().orElseThrow();
+        assertThat(hit.get("score"), notNullValue());
+        assertThat((Map<String, Object>) hit.get("fields"), hasEntry("c_string", "Kestra Doc"));
+        assertThat((Map<String, Object>) hit.get("content"), hasEntry("c_int", 3));
+    }
+
+    @Test
+    void limit() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        Search.Output output = searchBuilder()
+            .queryString(Property.ofValue("c_string:kestra"))
+            .limit(Property.ofValue(1))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+    }
+
+    @Test
+    void fetchDocumentsRequiresBucket() {
+        RunContext runContext = runContextFactory.of();
+
+        Search task = searchBuilder()
+            .queryString(Property.ofValue("c_string:kestra"))
+            .fetchDocuments(Property.ofValue(true))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContext));
+    }
+
+    private Search.SearchBuilder<?, ?> searchBuilder() {
+        return Search.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .index(Property.ofValue(INDEX));
+    }
+}
@@ -0,0 +1,109 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.couchbase.client.java.kv.StoreSemantics;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class SubDocumentTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void lookupIn() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        SubDocument.Output output = subDocumentBuilder()
+            .keys(Property.ofValue(List.of("a-scoped-collection-doc", "does-not-exist")))
+            .specs(List.of(
+                SubDocument.Spec.builder().type(SubDocument.SpecType.GET).path("c_string").build(),
+                SubDocument.Spec.builder().type(SubDocument.SpecType.EXISTS).path("c_missing").build()
+            ))
+            .fetchType(Property.ofValue(FetchType.FETCH))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(2L));
+
+        Map<String, Object> found = output.getRows().getFirst();
+        assertThat(found.get("found"), is(true));
+        assertThat((Map<String, Object>) found.get("values"), hasEntry("c_string", "A collection doc"));
+        assertThat((Map<String, Object>) found.get("values"), hasEntry("c_missing", false));
+
+        assertThat(output.getRows().get(1).get("found"), is(false));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void mutateInIncrement() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        SubDocument task = subDocumentBuilder()
+            // a fresh document on every run, so the counter starts from zero
+            .keys(Property.ofValue(List.of("subdoc-counter-" + IdUtils.create())))
+            .specs(List.of(
+                SubDocument.Spec.builder().type(SubDocument.SpecType.INCREMENT).path("counter").delta(2L).createPath(true).build(),
+                SubDocument.Spec.builder().type(SubDocument.SpecType.UPSERT).path("status").value("DONE").build()
+            ))
+            .storeSemantics(Property.ofValue(StoreSemantics.UPSERT))
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .build();
+
+        task.run(runContext);
+        SubDocument.Output output = task.run(runContext);
+
+        assertThat((Map<String, Object>) output.getRow().get("values"), hasEntry("counter", 4L));
+    }
+
+    @Test
+    void rejectsMixedSpecs() {
+        SubDocument task = subDocumentBuilder()
+            .keys(Property.ofValue(List.of("a-scoped-collection-doc")))
+            .specs(List.of(
+                SubDocument.Spec.builder().type(SubDocument.SpecType.GET).path("c_string").build(),
+                SubDocument.Spec.builder().type(SubDocument.SpecType.INCREMENT).path("counter").build()
+            ))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContextFactory.of()));
+    }
+
+    @Test
+    void rejectsMutationWithoutValue() {
+        SubDocument task = subDocumentBuilder()
+            .keys(Property.ofValue(List.of("a-scoped-collection-doc")))
+            .specs(List.of(
+                SubDocument.Spec.builder().type(SubDocument.SpecType.ARRAY_APPEND).path("tags").build()
+            ))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContextFactory.of()));
+    }
+
+    private SubDocument.SubDocumentBuilder<?, ?> subDocumentBuilder() {
+        return SubDocument.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION));
+    }
+}
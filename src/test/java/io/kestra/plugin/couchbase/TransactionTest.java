@@ -0,0 +1,95 @@
+package io.kestra.plugin.couchbase;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.couchbase.client.core.msg.kv.DurabilityLevel;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class TransactionTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void commitsOperationsAndQueries() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String first = "tx-" + IdUtils.create();
+        String second = "tx-" + IdUtils.create();
+
+        Transaction.Output output = transactionBuilder()
+            .operations(List.of(
+                Transaction.Operation.builder().type(Transaction.OperationType.INSERT).id(Property.ofValue(first)).document(Map.of("c_int", 1)).build(),
+                Transaction.Operation.builder().type(Transaction.OperationType.INSERT).id(Property.ofValue(second)).document(Map.of("c_int", 2)).build(),
+                Transaction.Operation.builder().type(Transaction.OperationType.REPLACE).id(Property.ofValue(first)).document(Map.of("c_int", 10)).build(),
+                Transaction.Operation.builder().type(Transaction.OperationType.GET).id(Property.ofValue(first)).build()
+            ))
+            .queries(Property.ofValue(List.of(
+                "SELECT SUM(c_int) AS total FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` USE KEYS ['" + first + "', '" + second + "']"
+            )))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getTransactionId(), notNullValue());
+        assertThat(output.getOperations(), hasSize(4));
+        assertThat(output.getOperations().get(3).get("content"), is(Map.of("c_int", 10)));
+        assertThat(output.getQueries().getFirst().getFirst(), hasEntry("total", 12));
+
+        Query.Output committed = authentifiedQueryBuilder()
+            .query("SELECT c_int FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` USE KEYS '" + first + "'")
+            .fetchType(Property.ofValue(FetchType.FETCH_ONE))
+            .build()
+            .run(runContext);
+
+        assertThat(committed.getRow(), hasEntry("c_int", 10));
+    }
+
+    @Test
+    void rollsBackOnFailure() throws Exception {
+        RunContext runContext = runContextFactory.of();
+        String inserted = "tx-" + IdUtils.create();
+
+        Transaction task = transactionBuilder()
+            .operations(List.of(
+                Transaction.Operation.builder().type(Transaction.OperationType.INSERT).id(Property.ofValue(inserted)).document(Map.of("c_int", 1)).build(),
+                Transaction.Operation.builder().type(Transaction.OperationType.REPLACE).id(Property.ofValue("tx-does-not-exist")).document(Map.of("c_int", 2)).build()
+            ))
+            .build();
+
+        assertThrows(Exception.class, () -> task.run(runContext));
+
+        Query.Output rolledBack = authentifiedQueryBuilder()
+            .query("SELECT c_int FROM " + BUCKET + ".`" + SCOPE + "`.`" + COLLECTION + "` USE KEYS '" + inserted + "'")
+            .fetchType(Property.ofValue(FetchType.FETCH))
+            .build()
+            .run(runContext);
+
+        assertThat(rolledBack.getSize(), is(0L));
+    }
+
+    private Transaction.TransactionBuilder<?, ?> transactionBuilder() {
+        return Transaction.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION))
+            // the single node test cluster has no replica
+            .durability(Property.ofValue(DurabilityLevel.NONE));
+    }
+}
@@ -1,5 +1,6 @@
 package io.kestra.plugin.couchbase;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -7,13 +8,24 @@ import org.junit.jupiter.api.Test;
 
 import io.kestra.core.junit.annotations.EvaluateTrigger;
 import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.conditions.ConditionContext;
 import io.kestra.core.models.executions.Execution;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.models.tasks.common.FetchType;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.TestsUtils;
+
+import jakarta.inject.Inject;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @KestraTest
 class TriggerTest extends CouchbaseTest {
+    @Inject
+    private RunContextFactory runContextFactory;
 
     @SuppressWarnings("unchecked")
     @Test
@@ -24,4 +36,122 @@ class TriggerTest extends CouchbaseTest {
         Map<String, Object> row = (Map<String, Object>) ((Map<String, Object>) execution.getTrigger().getVariables().get("row")).get(COLLECTION);
         assertThat(row.get("c_string"), is("A collection doc"));
     }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void watermarkTrigger() throws Exception {
+        // a trigger id of its own, so no watermark stored by a previous run filters the rows out
+        Trigger trigger = batchTriggerBuilder()
+            .query("SELECT c_int FROM " + BUCKET + " WHERE c_int > $watermark")
+            .watermarkField(Property.ofValue("c_int"))
+            .initialWatermark(0)
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> execution = trigger.evaluate(context.getKey(), context.getValue());
+
+        assertThat(execution.isPresent(), is(true));
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) execution.get().getTrigger().getVariables().get("rows");
+        assertThat(rows.getFirst().get("c_int"), is(3));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void batchedTrigger() throws Exception {
+        // a trigger id of its own, so no seen key or queued batch stored by a previous run is picked up
+        Trigger trigger = batchTriggerBuilder()
+            .query("SELECT v.* FROM [{\"id\": 1}, {\"id\": 1}, {\"id\": 2}, {\"id\": 3}] AS v")
+            .batchSize(Property.ofValue(2))
+            .deduplicationFields(Property.ofValue(List.of("id")))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> optionalExecution = trigger.evaluate(context.getKey(), context.getValue());
+
+        assertThat(optionalExecution.isPresent(), is(true));
+        Map<String, Object> variables = optionalExecution.get().getTrigger().getVariables();
+        List<Map<String, Object>> rows = (List<Map<String, Object>>) variables.get("rows");
+        assertThat(((Number) variables.get("size")).longValue(), is(2L));
+        // the duplicate of the first row is skipped within the poll
+        assertThat(rows.stream().map(row -> row.get("id")).toList(), is(List.of(1, 2)));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void batchedTrigger_StartsQueuedBatchBeforeQuerying() throws Exception {
+        Trigger trigger = batchTriggerBuilder()
+            .query("SELECT v.* FROM [{\"id\": 1}, {\"id\": 2}, {\"id\": 3}] AS v")
+            .batchSize(Property.ofValue(2))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> first = trigger.evaluate(context.getKey(), context.getValue());
+        Optional<Execution> second = trigger.evaluate(context.getKey(), context.getValue());
+
+        assertThat(first.isPresent(), is(true));
+        assertThat(((List<Map<String, Object>>) first.get().getTrigger().getVariables().get("rows")).stream().map(row -> row.get("id")).toList(), is(List.of(1, 2)));
+        assertThat(second.isPresent(), is(true));
+        assertThat(((List<Map<String, Object>>) second.get().getTrigger().getVariables().get("rows")).stream().map(row -> row.get("id")).toList(), is(List.of(3)));
+    }
+
+    @Test
+    void deduplicatedTrigger_SkipsRowsSeenByPreviousPolls() throws Exception {
+        Trigger trigger = batchTriggerBuilder()
+            .query("SELECT v.* FROM [{\"id\": 1}, {\"id\": 2}] AS v")
+            .deduplicationFields(Property.ofValue(List.of("id")))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        Optional<Execution> first = trigger.evaluate(context.getKey(), context.getValue());
+        Optional<Execution> second = trigger.evaluate(context.getKey(), context.getValue());
+
+        assertThat(first.isPresent(), is(true));
+        assertThat(((Number) first.get().getTrigger().getVariables().get("size")).longValue(), is(2L));
+        assertThat(second.isPresent(), is(false));
+    }
+
+    @Test
+    void batchedTrigger_RejectsEmptyBatches() {
+        Trigger trigger = batchTriggerBuilder()
+            .query("SELECT 1 AS id")
+            .batchSize(Property.ofValue(0))
+            .build();
+
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        assertThrows(IllegalArgumentException.class, () -> trigger.evaluate(context.getKey(), context.getValue()));
+    }
+
+    private static Trigger.TriggerBuilder<?, ?> batchTriggerBuilder() {
+        return Trigger.builder()
+            .id("watch-" + IdUtils.create())
+            .type(Trigger.class.getName())
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .fetchType(Property.ofValue(FetchType.FETCH));
+    }
+
+    @Test
+    void seenKeysEvictLeastRecentlySeen() {
+        SeenKeys seen = new SeenKeys(List.of("a", "b"), 3);
+
+        assertThat(seen.add("a"), is(false));
+        assertThat(seen.add("c"), is(true));
+        assertThat(seen.add("d"), is(true));
+        assertThat(seen.toList(), is(List.of("a", "c", "d")));
+        assertThat(seen.add("b"), is(true));
+    }
+
+    @Test
+    void watermarkMax() {
+        assertThat(Watermarks.max(3, 10L), is(10L));
+        assertThat(Watermarks.max(3.5, 2), is(3.5));
+        assertThat(Watermarks.max("2024-01-02T00:00:00Z", "2024-01-01T00:00:00Z"), is("2024-01-02T00:00:00Z"));
+        assertThrows(IllegalArgumentException.class, () -> Watermarks.max(9, "10"));
+    }
 }
@@ -0,0 +1,116 @@
+package io.kestra.plugin.couchbase;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.kestra.core.junit.annotations.KestraTest;
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+
+import jakarta.inject.Inject;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@KestraTest
+class VectorSearchTest extends CouchbaseTest {
+    private static final String INDEX = "kestra-vectors";
+
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void inlineVector() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        VectorSearch.Output output = vectorSearchBuilder()
+            .vector(Property.ofValue(List.of(0.9F, 0.1F, 0F)))
+            .k(Property.ofValue(1))
+            .fetchDocuments(Property.ofValue(true))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(1L));
+
+        List<Map<String, Object>> hits = hits(runContext, output.getUri());
+        assertThat(hits.getFirst(), hasEntry("id", "vec-1"));
+        assertThat(hits.getFirst(), hasEntry("query", 0));
+        assertThat((Map<String, Object>) hits.getFirst().get("content"), hasEntry("name", "x axis"));
+    }
+
+    @Test
+    void prefilter() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        VectorSearch.Output output = vectorSearchBuilder()
+            .vector(Property.ofValue(List.of(1F, 0F, 0F)))
+            .prefilter(Property.ofValue("color:blue"))
+            .k(Property.ofValue(3))
+            .build()
+            .run(runContext);
+
+        List<Map<String, Object>> hits = hits(runContext, output.getUri());
+        assertThat(hits.stream().map(hit -> hit.get("id")).toList(), containsInAnyOrder("vec-2", "vec-3"));
+    }
+
+    @Test
+    void vectorsFromFile() throws Exception {
+        RunContext runContext = runContextFactory.of();
+
+        URI from = storeRows(runContext, List.of(
+            Map.of("vector", List.of(0, 1, 0)),
+            Map.of("vector", List.of(0, 0.1, 0.9))
+        ));
+
+        VectorSearch.Output output = vectorSearchBuilder()
+            .from(Property.ofValue(from.toString()))
+            .k(Property.ofValue(1))
+            .build()
+            .run(runContext);
+
+        assertThat(output.getSize(), is(2L));
+
+        List<Map<String, Object>> hits = hits(runContext, output.getUri());
+        assertThat(hits.get(0), hasEntry("id", "vec-2"));
+        assertThat(hits.get(0), hasEntry("query", 0));
+        assertThat(hits.get(1), hasEntry("id", "vec-3"));
+        assertThat(hits.get(1), hasEntry("query", 1));
+    }
+
+    @Test
+    void requiresOneVectorSource() {
+        RunContext runContext = runContextFactory.of();
+
+        VectorSearch task = vectorSearchBuilder().build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContext));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> hits(RunContext runContext, URI uri) throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(uri)))) {
+            return FileSerde.readAll(reader).map(row -> (Map<String, Object>) row).collectList().block();
+        }
+    }
+
+    private VectorSearch.VectorSearchBuilder<?, ?> vectorSearchBuilder() {
+        return VectorSearch.builder()
+            .connectionString(CONNECTION_STRING)
+            .username(USER)
+            .password(PASSWORD)
+            .bucket(Property.ofValue(BUCKET))
+            .scope(Property.ofValue(SCOPE))
+            .collection(Property.ofValue(COLLECTION))
+            .index(Property.ofValue(INDEX))
+            .vectorField(Property.ofValue("embedding"));
+    }
+}
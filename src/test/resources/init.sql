@@ -29,4 +29,9 @@ BUILD INDEX ON kestra.`some-scope`.`some-collection`(`#primary`);
 
 INSERT INTO kestra.`some-scope`.`some-collection` (KEY, VALUE)
     VALUES ("a-scoped-collection-doc",
-            { "c_string" : "A collection doc" });
\ No newline at end of file
+            { "c_string" : "A collection doc" });
+
+INSERT INTO kestra.`some-scope`.`some-collection` (KEY, VALUE)
+    VALUES ("vec-1", { "name" : "x axis", "color": "red", "embedding": [1.0, 0.0, 0.0] }),
+    VALUES ("vec-2", { "name" : "y axis", "color": "blue", "embedding": [0.0, 1.0, 0.0] }),
+    VALUES ("vec-3", { "name" : "z axis", "color": "blue", "embedding": [0.0, 0.0, 1.0] });